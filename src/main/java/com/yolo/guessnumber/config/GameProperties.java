@@ -0,0 +1,85 @@
+package com.yolo.guessnumber.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+@Component
+@ConfigurationProperties(prefix = "game")
+@Getter
+@Setter
+public class GameProperties {
+
+    // Open the next round's betting while the previous round settles
+    private boolean pipelined = false;
+    private Bets bets = new Bets();
+    private Persistence persistence = new Persistence();
+    private Broadcast broadcast = new Broadcast();
+    private Rng rng = new Rng();
+    private Dedup dedup = new Dedup();
+    private Resume resume = new Resume();
+    private Reactive reactive = new Reactive();
+
+    @Getter
+    @Setter
+    public static class Bets {
+        private int maxPerSession = 10;
+        private int maxPerFrame = 10;
+        // Largest single bet in minor units; keeps payouts and round totals far from long overflow
+        private long maxAmount = 100_000_000;
+        // Must fit settled_bet.nickname
+        private int maxNicknameLength = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Persistence {
+        private int queueCapacity = 4096;
+        private int batchSize = 64;
+        // Attempts per batch once shutting down; while running a batch is retried until it succeeds
+        private int maxAttempts = 5;
+        private long retryBackoffMs = 200;
+        private long maxRetryBackoffMs = 5_000;
+        // Rounds that can't reach the database are appended here as JSON lines
+        private String spillFile = "./data/unpersisted-rounds.jsonl";
+    }
+
+    @Getter
+    @Setter
+    public static class Broadcast {
+        // 0 means one shard per available core
+        private int shards = 0;
+        private int parallelThreshold = 512;
+    }
+
+    @Getter
+    @Setter
+    public static class Dedup {
+        // Request ids remembered per round; the previous round's ids are kept as well
+        private int capacity = 65_536;
+    }
+
+    @Getter
+    @Setter
+    public static class Resume {
+        // How long a disconnected player's state is kept; 0 disables resume
+        private int graceSeconds = 30;
+        private int bufferSize = 32;
+    }
+
+    @Getter
+    @Setter
+    public static class Reactive {
+        // Frames queued per connection before a slow client is disconnected
+        private int outboundBufferSize = 256;
+    }
+
+    @Getter
+    @Setter
+    public static class Rng {
+        private boolean provablyFair = false;
+        private int chainLength = 10_000;
+        private int refillBelow = 2_000;
+    }
+}
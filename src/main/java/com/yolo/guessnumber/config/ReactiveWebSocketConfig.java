@@ -0,0 +1,45 @@
+package com.yolo.guessnumber.config;
+
+import com.yolo.guessnumber.handler.ReactiveWebSocketHandler;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.reactive.HandlerMapping;
+import org.springframework.web.reactive.handler.SimpleUrlHandlerMapping;
+import org.springframework.web.reactive.socket.server.support.WebSocketHandlerAdapter;
+
+import java.util.Map;
+
+/**
+ * Non-blocking transport, enabled with {@code --spring.profiles.active=reactive}.
+ * Serves the same {@code /ws} endpoint as {@link WebSocketConfig} on Reactor Netty.
+ */
+@Configuration
+@Profile("reactive")
+public class ReactiveWebSocketConfig {
+
+    private final ReactiveWebSocketHandler reactiveWebSocketHandler;
+
+    @Autowired
+    public ReactiveWebSocketConfig(ReactiveWebSocketHandler reactiveWebSocketHandler) {
+        this.reactiveWebSocketHandler = reactiveWebSocketHandler;
+    }
+
+    // Tomcat is still on the classpath for the servlet stack, so pick Netty explicitly
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public HandlerMapping webSocketHandlerMapping() {
+        return new SimpleUrlHandlerMapping(Map.of("/ws", reactiveWebSocketHandler), -1);
+    }
+
+    @Bean
+    public WebSocketHandlerAdapter webSocketHandlerAdapter() {
+        return new WebSocketHandlerAdapter();
+    }
+}
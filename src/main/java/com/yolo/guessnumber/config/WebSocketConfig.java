@@ -2,12 +2,14 @@ package com.yolo.guessnumber.config;
 
 import com.yolo.guessnumber.handler.WebSocketHandler;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.beans.factory.annotation.Autowired;
 
 @Configuration
+@Profile("!reactive")
 @EnableWebSocket
 public class WebSocketConfig implements WebSocketConfigurer {
 
@@ -0,0 +1,8 @@
+package com.yolo.guessnumber.gamelogic;
+
+/**
+ * A pre-computed provably-fair outcome. {@code commitment} is published when the round opens,
+ * {@code serverSeed} once it is settled. Values are hex encoded.
+ */
+public record FairDraw(String serverSeed, String commitment, int result) {
+}
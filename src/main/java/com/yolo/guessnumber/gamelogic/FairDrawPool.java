@@ -0,0 +1,111 @@
+package com.yolo.guessnumber.gamelogic;
+
+import java.security.SecureRandom;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Keeps a queue of provably-fair draws so a round only has to take the next one.
+ * Seed chains are generated in bulk on a background thread whenever the queue runs low; only the
+ * first chain is built by the constructor. If the queue does run dry, {@link #next()} waits for
+ * the generator, which queues draws one by one, instead of hashing a chain on the game thread.
+ */
+public class FairDrawPool {
+
+    private static final int SEED_BYTES = 32;
+    private static final long DRY_WAIT_SECONDS = 5;
+
+    private final BlockingQueue<FairDraw> draws = new LinkedBlockingQueue<>();
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+    private final ExecutorService generator = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "fair-draw-generator");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final int chainLength;
+    private final int refillBelow;
+    private final LongAdder backgroundChains = new LongAdder();
+    private final LongAdder dryWaits = new LongAdder();
+
+    public FairDrawPool(int chainLength, int refillBelow) {
+        this.chainLength = chainLength;
+        this.refillBelow = refillBelow;
+        appendChain();
+    }
+
+    public FairDraw next() {
+        FairDraw draw = draws.poll();
+        if (draw == null) {
+            dryWaits.increment();
+            System.err.println("Fair draw pool ran dry, waiting for the generator; consider raising game.rng.refill-below");
+            scheduleRefill();
+            try {
+                draw = draws.poll(DRY_WAIT_SECONDS, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a fair draw", e);
+            }
+            if (draw == null) {
+                throw new IllegalStateException("No fair draw generated within " + DRY_WAIT_SECONDS + " seconds");
+            }
+        }
+        if (draws.size() < refillBelow) {
+            scheduleRefill();
+        }
+        return draw;
+    }
+
+    public int size() {
+        return draws.size();
+    }
+
+    public long getBackgroundChains() {
+        return backgroundChains.sum();
+    }
+
+    public long getDryWaits() {
+        return dryWaits.sum();
+    }
+
+    private void scheduleRefill() {
+        if (refillScheduled.compareAndSet(false, true)) {
+            generator.execute(() -> {
+                try {
+                    appendChain();
+                    backgroundChains.increment();
+                } finally {
+                    refillScheduled.set(false);
+                }
+            });
+        }
+    }
+
+    public void shutdown() {
+        generator.shutdownNow();
+    }
+
+    /**
+     * Builds seeds[i] = SHA-256(seeds[i + 1]) from a random last seed and queues them from seeds[0]
+     * onwards, so every revealed seed is the commitment of the following round.
+     * Synchronized so two chains are never interleaved in the queue.
+     */
+    private synchronized void appendChain() {
+        byte[][] seeds = new byte[chainLength][];
+        seeds[chainLength - 1] = new byte[SEED_BYTES];
+        secureRandom.nextBytes(seeds[chainLength - 1]);
+        for (int i = chainLength - 2; i >= 0; i--) {
+            seeds[i] = ProvablyFairVerifier.sha256(seeds[i + 1]);
+        }
+        for (byte[] seed : seeds) {
+            draws.add(new FairDraw(ProvablyFairVerifier.toHex(seed),
+                    ProvablyFairVerifier.toHex(ProvablyFairVerifier.sha256(seed)),
+                    ProvablyFairVerifier.result(seed)));
+        }
+    }
+}
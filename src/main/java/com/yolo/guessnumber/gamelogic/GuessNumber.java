@@ -1,16 +1,77 @@
 package com.yolo.guessnumber.gamelogic;
 
+import com.yolo.guessnumber.config.GameProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.Random;
 import java.util.concurrent.ThreadLocalRandom;
 
 @Component
 public class GuessNumber {
-    public static final Double MULTIPLIER = 9.9d;
+    // Payout multiplier 9.9 as an exact fraction
+    public static final long MULTIPLIER_NUMERATOR = 99;
+    public static final long MULTIPLIER_DENOMINATOR = 10;
 
-    private final ThreadLocalRandom rng = ThreadLocalRandom.current();
+    // Null unless game.rng.provably-fair is set
+    private final FairDrawPool fairDrawPool;
+    // Null unless seeded, for reproducible simulations
+    private final Random seededRandom;
+
+    public GuessNumber() {
+        this.fairDrawPool = null;
+        this.seededRandom = null;
+    }
+
+    /**
+     * Draws from a fixed seed, so the same seed always yields the same sequence of results.
+     */
+    public GuessNumber(long seed) {
+        this.fairDrawPool = null;
+        this.seededRandom = new Random(seed);
+    }
+
+    @Autowired
+    public GuessNumber(GameProperties gameProperties) {
+        GameProperties.Rng rng = gameProperties.getRng();
+        this.fairDrawPool = rng.isProvablyFair() ? new FairDrawPool(rng.getChainLength(), rng.getRefillBelow()) : null;
+        this.seededRandom = null;
+    }
 
     public int getResult() {
-        return rng.nextInt(1, 11);
+        if (seededRandom != null) {
+            return seededRandom.nextInt(1, 11);
+        }
+        // ThreadLocalRandom must be looked up on the thread that uses it
+        return ThreadLocalRandom.current().nextInt(1, 11);
+    }
+
+    public boolean isProvablyFair() {
+        return fairDrawPool != null;
+    }
+
+    /**
+     * Takes the next pre-computed draw. Only available in provably-fair mode.
+     */
+    public FairDraw nextFairDraw() {
+        if (fairDrawPool == null) {
+            throw new IllegalStateException("Provably-fair mode is not enabled");
+        }
+        return fairDrawPool.next();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (fairDrawPool != null) {
+            fairDrawPool.shutdown();
+        }
+    }
+
+    /**
+     * Winning payout in minor units, rounded down to the cent.
+     */
+    public static long payout(long betAmount) {
+        return Math.multiplyExact(betAmount, MULTIPLIER_NUMERATOR) / MULTIPLIER_DENOMINATOR;
     }
 }
@@ -0,0 +1,64 @@
+package com.yolo.guessnumber.gamelogic;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializerProvider;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Amounts are held as {@code long} minor units (cents). On the wire they stay decimal numbers
+ * in major units, e.g. {@code 12.5} is held as {@code 1250}.
+ */
+public final class Money {
+
+    public static final int SCALE = 2;
+
+    private Money() {
+    }
+
+    /**
+     * @throws ArithmeticException if the amount has more than {@link #SCALE} decimal places
+     */
+    public static long toMinor(BigDecimal major) {
+        return major.setScale(SCALE, RoundingMode.UNNECESSARY).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal toMajor(long minor) {
+        return BigDecimal.valueOf(minor, SCALE);
+    }
+
+    public static String format(long minor) {
+        return toMajor(minor).toPlainString();
+    }
+
+    public static class Serializer extends JsonSerializer<Long> {
+        @Override
+        public void serialize(Long minor, JsonGenerator gen, SerializerProvider serializers) throws IOException {
+            gen.writeNumber(toMajor(minor));
+        }
+    }
+
+    // Accepts numbers and numeric strings, as clients send both ("betAmount":"1")
+    public static class Deserializer extends JsonDeserializer<Long> {
+        @Override
+        public Long deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            String text = p.getText().trim();
+            try {
+                BigDecimal major = p.currentToken() == JsonToken.VALUE_STRING
+                        ? new BigDecimal(text)
+                        : p.getDecimalValue();
+                return toMinor(major);
+            } catch (NumberFormatException | ArithmeticException e) {
+                throw JsonMappingException.from(p, "Invalid amount: " + text);
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.yolo.guessnumber.gamelogic;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+
+/**
+ * Lets anyone check a provably-fair round from the published values.
+ * <ul>
+ *     <li>Before the round the server publishes {@code commitment = SHA-256(serverSeed)}.</li>
+ *     <li>After the round it reveals {@code serverSeed}; the winning number is derived from
+ *     {@code HMAC-SHA256(serverSeed, "guessnumber")}, so it is fixed by the commitment.</li>
+ *     <li>Seeds form a hash chain: each revealed seed is the SHA-256 of the next round's seed,
+ *     which is also that round's commitment.</li>
+ * </ul>
+ */
+public final class ProvablyFairVerifier {
+
+    private static final byte[] RESULT_MESSAGE = "guessnumber".getBytes(StandardCharsets.UTF_8);
+    private static final HexFormat HEX = HexFormat.of();
+    // Largest multiple of 10 below 2^32, so the modulo below has no bias
+    private static final long UNBIASED_LIMIT = (1L << 32) - (1L << 32) % 10;
+
+    private ProvablyFairVerifier() {
+    }
+
+    public static String commitment(String serverSeed) {
+        return HEX.formatHex(sha256(HEX.parseHex(serverSeed)));
+    }
+
+    public static int result(String serverSeed) {
+        return result(HEX.parseHex(serverSeed));
+    }
+
+    public static boolean verify(String serverSeed, String commitment, int winningNumber) {
+        return commitment(serverSeed).equalsIgnoreCase(commitment) && result(serverSeed) == winningNumber;
+    }
+
+    /**
+     * True if {@code nextSeed} was revealed for the round right after the one that revealed {@code previousSeed}.
+     */
+    public static boolean isNextInChain(String previousSeed, String nextSeed) {
+        return commitment(nextSeed).equalsIgnoreCase(previousSeed);
+    }
+
+    static byte[] sha256(byte[] input) {
+        try {
+            return MessageDigest.getInstance("SHA-256").digest(input);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+
+    static int result(byte[] serverSeed) {
+        byte[] hash = hmacSha256(serverSeed, RESULT_MESSAGE);
+        while (true) {
+            for (int i = 0; i + 4 <= hash.length; i += 4) {
+                long value = ((hash[i] & 0xFFL) << 24) | ((hash[i + 1] & 0xFFL) << 16)
+                        | ((hash[i + 2] & 0xFFL) << 8) | (hash[i + 3] & 0xFFL);
+                if (value < UNBIASED_LIMIT) {
+                    return (int) (value % 10) + 1;
+                }
+            }
+            hash = sha256(hash);
+        }
+    }
+
+    private static byte[] hmacSha256(byte[] key, byte[] message) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(key, "HmacSHA256"));
+            return mac.doFinal(message);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HmacSHA256 is not available", e);
+        }
+    }
+
+    static String toHex(byte[] bytes) {
+        return HEX.formatHex(bytes);
+    }
+}
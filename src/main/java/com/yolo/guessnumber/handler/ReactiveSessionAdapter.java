@@ -0,0 +1,177 @@
+package com.yolo.guessnumber.handler;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+import reactor.core.scheduler.Schedulers;
+import reactor.util.concurrent.Queues;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Presents a reactive WebSocket session through the servlet {@link WebSocketSession} interface.
+ * {@link #sendMessage} never blocks: frames are queued on a per-connection sink that the reactive
+ * session drains as the socket becomes writable. The queue grows in small chunks as frames arrive,
+ * and a pending-frame count caps it at {@code bufferSize}. A client too slow to stay under the cap
+ * is disconnected rather than allowed to grow the heap.
+ */
+public class ReactiveSessionAdapter implements WebSocketSession {
+
+    private final org.springframework.web.reactive.socket.WebSocketSession delegate;
+    private final Sinks.Many<String> outbound;
+    private final int bufferSize;
+    // Frames queued but not yet taken by the socket; the queue itself grows only as needed
+    private final AtomicInteger pending = new AtomicInteger();
+    private volatile boolean open = true;
+    // Frame limits are enforced by the reactive server; these only hold what callers set
+    private volatile int textMessageSizeLimit = -1;
+    private volatile int binaryMessageSizeLimit = -1;
+
+    public ReactiveSessionAdapter(org.springframework.web.reactive.socket.WebSocketSession delegate,
+                                  int bufferSize) {
+        this.delegate = delegate;
+        this.bufferSize = bufferSize;
+        // A linked queue of small chunks, so an idle connection doesn't hold a full-size array
+        this.outbound = Sinks.many().unicast().onBackpressureBuffer(Queues.<String>unbounded(16).get());
+    }
+
+    public Flux<String> outbound() {
+        return outbound.asFlux().doOnNext(payload -> pending.decrementAndGet());
+    }
+
+    void markClosed() {
+        open = false;
+        synchronized (outbound) {
+            outbound.tryEmitComplete();
+        }
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        if (!(message instanceof TextMessage textMessage)) {
+            throw new IOException("Only text messages are supported: " + message);
+        }
+        if (!open) {
+            throw new IOException("Session is closed: " + getId());
+        }
+        Sinks.EmitResult result;
+        // Broadcasts and acks come from different threads; the sink needs serialized emission
+        synchronized (outbound) {
+            if (pending.incrementAndGet() > bufferSize) {
+                pending.decrementAndGet();
+                result = Sinks.EmitResult.FAIL_OVERFLOW;
+            } else {
+                result = outbound.tryEmitNext(textMessage.getPayload());
+                if (result.isFailure()) {
+                    pending.decrementAndGet();
+                }
+            }
+        }
+        if (result == Sinks.EmitResult.FAIL_OVERFLOW) {
+            System.err.println("Outbound buffer full, disconnecting slow session " + getId());
+            markClosed();
+            // Closed off the sending thread, so a broadcast never runs the connection-closed callback
+            Mono.defer(() -> delegate.close(new org.springframework.web.reactive.socket.CloseStatus(
+                            CloseStatus.SERVICE_OVERLOAD.getCode(), "Too slow reading messages")))
+                    .subscribeOn(Schedulers.parallel())
+                    .subscribe();
+        }
+        if (result.isFailure()) {
+            throw new IOException("Could not queue message for session " + getId() + ": " + result);
+        }
+    }
+
+    @Override
+    public String getId() {
+        return delegate.getId();
+    }
+
+    @Override
+    public URI getUri() {
+        return delegate.getHandshakeInfo().getUri();
+    }
+
+    @Override
+    public HttpHeaders getHandshakeHeaders() {
+        return delegate.getHandshakeInfo().getHeaders();
+    }
+
+    @Override
+    public Map<String, Object> getAttributes() {
+        return delegate.getAttributes();
+    }
+
+    @Override
+    public Principal getPrincipal() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getLocalAddress() {
+        return null;
+    }
+
+    @Override
+    public InetSocketAddress getRemoteAddress() {
+        return delegate.getHandshakeInfo().getRemoteAddress();
+    }
+
+    @Override
+    public String getAcceptedProtocol() {
+        return delegate.getHandshakeInfo().getSubProtocol();
+    }
+
+    @Override
+    public void setTextMessageSizeLimit(int messageSizeLimit) {
+        this.textMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getTextMessageSizeLimit() {
+        return textMessageSizeLimit;
+    }
+
+    @Override
+    public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+        this.binaryMessageSizeLimit = messageSizeLimit;
+    }
+
+    @Override
+    public int getBinaryMessageSizeLimit() {
+        return binaryMessageSizeLimit;
+    }
+
+    @Override
+    public List<WebSocketExtension> getExtensions() {
+        return List.of();
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() {
+        close(CloseStatus.NORMAL);
+    }
+
+    @Override
+    public void close(CloseStatus status) {
+        markClosed();
+        delegate.close(new org.springframework.web.reactive.socket.CloseStatus(status.getCode(), status.getReason()))
+                .subscribe();
+    }
+}
@@ -0,0 +1,55 @@
+package com.yolo.guessnumber.handler;
+
+import com.yolo.guessnumber.config.GameProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import reactor.core.publisher.Mono;
+
+/**
+ * Reactive entry point for the game. Every connection is wrapped in a {@link ReactiveSessionAdapter}
+ * and handed to the servlet {@link WebSocketHandler}, so both transports drive the same game core.
+ */
+@Component
+@Profile("reactive")
+public class ReactiveWebSocketHandler implements org.springframework.web.reactive.socket.WebSocketHandler {
+
+    private final WebSocketHandler webSocketHandler;
+    private final int outboundBufferSize;
+
+    @Autowired
+    public ReactiveWebSocketHandler(WebSocketHandler webSocketHandler, GameProperties gameProperties) {
+        this.webSocketHandler = webSocketHandler;
+        this.outboundBufferSize = gameProperties.getReactive().getOutboundBufferSize();
+    }
+
+    @Override
+    public Mono<Void> handle(WebSocketSession session) {
+        ReactiveSessionAdapter adapter = new ReactiveSessionAdapter(session, outboundBufferSize);
+        webSocketHandler.afterConnectionEstablished(adapter);
+
+        Mono<Void> inbound = session.receive()
+                .filter(message -> message.getType() == WebSocketMessage.Type.TEXT)
+                .doOnNext(message -> handleText(adapter, message.getPayloadAsText()))
+                .doFinally(signal -> {
+                    adapter.markClosed();
+                    webSocketHandler.afterConnectionClosed(adapter, CloseStatus.NORMAL);
+                })
+                .then();
+        Mono<Void> outbound = session.send(adapter.outbound().map(session::textMessage));
+
+        return Mono.when(inbound, outbound);
+    }
+
+    private void handleText(ReactiveSessionAdapter adapter, String payload) {
+        try {
+            webSocketHandler.handleMessage(adapter, new TextMessage(payload));
+        } catch (Exception e) {
+            System.err.println(e.getMessage());
+        }
+    }
+}
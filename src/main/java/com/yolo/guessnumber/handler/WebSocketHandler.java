@@ -1,8 +1,11 @@
 package com.yolo.guessnumber.handler;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import com.yolo.guessnumber.playerBet.PlayerBetDTO;
 import com.yolo.guessnumber.service.GameService;
+import com.yolo.guessnumber.service.WebSocketService;
 import com.yolo.guessnumber.validator.RequestValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
@@ -10,34 +13,59 @@ import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 import org.springframework.web.socket.handler.TextWebSocketHandler;
+import org.springframework.web.util.UriComponentsBuilder;
+
+import java.net.URI;
+import java.util.List;
 
 @Component
 public class WebSocketHandler extends TextWebSocketHandler {
 
     private final RequestValidator requestValidator;
     private final GameService gameService;
+    private final WebSocketService webSocketService;
     private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectReader betListReader = objectMapper.readerForListOf(PlayerBetDTO.class);
 
     @Autowired
-    public WebSocketHandler(RequestValidator requestValidator, GameService gameService) {
+    public WebSocketHandler(RequestValidator requestValidator, GameService gameService,
+                            WebSocketService webSocketService) {
         this.requestValidator = requestValidator;
         this.gameService = gameService;
+        this.webSocketService = webSocketService;
     }
 
     @Override
     public void afterConnectionEstablished(WebSocketSession session) {
-        gameService.addSession(session);
+        String resumeToken = resumeToken(session);
+        if (resumeToken == null || !gameService.resumeSession(session, resumeToken)) {
+            gameService.addSession(session);
+        }
+    }
+
+    private String resumeToken(WebSocketSession session) {
+        URI uri = session.getUri();
+        if (uri == null) {
+            return null;
+        }
+        return UriComponentsBuilder.fromUri(uri).build().getQueryParams().getFirst("resumeToken");
     }
 
     @Override
     protected void handleTextMessage(WebSocketSession session, TextMessage message) {
         try {
-            requestValidator.isValidRequest(message.getPayload());
             String clientMsg = message.getPayload();
+            JsonNode frame = requestValidator.validateRequest(clientMsg);
             System.out.println("Received: " + clientMsg);
-            PlayerBetDTO playerBetDTO = objectMapper.readValue(clientMsg, PlayerBetDTO.class);
-            session.sendMessage(new TextMessage("Server received: " + clientMsg));
-            gameService.processPlayerBet(session.getId(), playerBetDTO);
+            // A frame is either a single bet or an array of bets
+            List<PlayerBetDTO> playerBetDTOs;
+            if (frame.isArray()) {
+                playerBetDTOs = betListReader.readValue(frame);
+            } else {
+                playerBetDTOs = List.of(objectMapper.treeToValue(frame, PlayerBetDTO.class));
+            }
+            webSocketService.sendText(session, "Server received: " + clientMsg);
+            gameService.processPlayerBets(session.getId(), playerBetDTOs);
         } catch (Exception e) {
             System.err.println(e.getMessage());
         }
@@ -0,0 +1,13 @@
+package com.yolo.guessnumber.persistence;
+
+import java.util.List;
+
+/**
+ * Immutable snapshot of a round after settlement, handed from the game thread to {@link SettledRoundWriter}.
+ */
+public record SettledRound(long roundId, int winningNumber, long settledAt, List<Bet> bets) {
+
+    // Amounts in minor units
+    public record Bet(String sessionId, String nickname, long betAmount, int pickedNumber, long winAmount) {
+    }
+}
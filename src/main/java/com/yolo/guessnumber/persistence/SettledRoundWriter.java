@@ -0,0 +1,281 @@
+package com.yolo.guessnumber.persistence;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolo.guessnumber.config.GameProperties;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Persists settled rounds on a background thread using JDBC batch inserts.
+ * {@link #submit} never waits on the database. While the writer runs, a batch failing with a
+ * transient error is retried with a capped backoff and the queue absorbs the outage; a batch failing
+ * with a non-transient error is written round by round and the rounds that still fail are spilled. A round that can't be queued, or a batch
+ * still failing after {@code maxAttempts} during shutdown, is appended to the spill file as JSON
+ * lines so it can be re-imported. Queued rounds are flushed on shutdown.
+ */
+@Component
+public class SettledRoundWriter {
+
+    static final String INSERT_ROUND =
+            "INSERT INTO settled_round (round_id, winning_number, settled_at) VALUES (?, ?, ?)";
+    static final String INSERT_BET =
+            "INSERT INTO settled_bet (round_id, session_id, nickname, bet_amount, picked_number, win_amount) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)";
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<SettledRound> queue;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long retryBackoffMs;
+    private final long maxRetryBackoffMs;
+    private final Path spillFile;
+    private final Thread worker;
+    // Submits hold the read lock, so once shutdown holds the write lock no offer is in flight
+    private final ReadWriteLock stateLock = new ReentrantReadWriteLock();
+    private volatile boolean running = true;
+
+    // Backpressure metrics
+    private final LongAdder submittedRounds = new LongAdder();
+    private final LongAdder rejectedRounds = new LongAdder();
+    private final LongAdder persistedRounds = new LongAdder();
+    private final LongAdder persistedBets = new LongAdder();
+    private final LongAdder failedRounds = new LongAdder();
+    private final LongAdder spilledRounds = new LongAdder();
+    private final LongAdder lostRounds = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+    @Autowired
+    public SettledRoundWriter(JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+                              GameProperties gameProperties) {
+        GameProperties.Persistence persistence = gameProperties.getPersistence();
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.queue = new ArrayBlockingQueue<>(persistence.getQueueCapacity());
+        this.batchSize = persistence.getBatchSize();
+        this.maxAttempts = persistence.getMaxAttempts();
+        this.retryBackoffMs = persistence.getRetryBackoffMs();
+        this.maxRetryBackoffMs = persistence.getMaxRetryBackoffMs();
+        this.spillFile = Path.of(persistence.getSpillFile());
+        this.worker = new Thread(this::drainLoop, "settled-round-writer");
+        worker.start();
+    }
+
+    /**
+     * @return false if the round could not be queued; it is then written to the spill file instead
+     */
+    public boolean submit(SettledRound round) {
+        submittedRounds.increment();
+        boolean queued;
+        stateLock.readLock().lock();
+        try {
+            queued = running && queue.offer(round);
+        } finally {
+            stateLock.readLock().unlock();
+        }
+        if (!queued) {
+            rejectedRounds.increment();
+            System.err.println("Settled round " + round.roundId() + " rejected, writer queue is full or stopped");
+            spill(List.of(round));
+            return false;
+        }
+        maxQueueDepth.accumulateAndGet(queue.size(), Math::max);
+        return true;
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        stateLock.writeLock().lock();
+        try {
+            running = false;
+        } finally {
+            stateLock.writeLock().unlock();
+        }
+        worker.join();
+        // Anything offered while the worker was exiting
+        List<SettledRound> batch = new ArrayList<>(batchSize);
+        while (queue.drainTo(batch, batchSize) > 0) {
+            writeWithRetry(batch);
+            batch.clear();
+        }
+        System.out.println("Settled round writer stopped. Persisted rounds: " + persistedRounds.sum()
+                + ", rejected: " + rejectedRounds.sum() + ", failed: " + failedRounds.sum()
+                + ", spilled: " + spilledRounds.sum() + ", lost: " + lostRounds.sum());
+    }
+
+    private void drainLoop() {
+        List<SettledRound> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                SettledRound first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                writeWithRetry(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void writeWithRetry(List<SettledRound> batch) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(batch));
+                persistedRounds.add(batch.size());
+                batch.forEach(round -> persistedBets.add(round.bets().size()));
+                return;
+            } catch (NonTransientDataAccessException e) {
+                // Retrying can't help, e.g. a constraint violation: isolate the bad round and spill it
+                if (batch.size() > 1) {
+                    System.err.println("Batch of " + batch.size() + " settled rounds rejected, writing them one by one: "
+                            + e.getMessage());
+                    for (SettledRound round : batch) {
+                        writeWithRetry(List.of(round));
+                    }
+                } else {
+                    failedRounds.add(batch.size());
+                    System.err.println("Settled round " + batch.get(0).roundId() + " can't be stored: " + e.getMessage());
+                    spill(batch);
+                }
+                return;
+            } catch (RuntimeException e) {
+                // Keep retrying while running; give up only when shutting down or interrupted
+                if ((!running || Thread.currentThread().isInterrupted()) && attempt >= maxAttempts) {
+                    failedRounds.add(batch.size());
+                    System.err.println("Failed to persist " + batch.size() + " settled rounds after "
+                            + attempt + " attempts: " + e.getMessage());
+                    spill(batch);
+                    return;
+                }
+                retries.increment();
+                if (attempt == maxAttempts) {
+                    System.err.println("Database unavailable, still retrying " + batch.size()
+                            + " settled rounds, " + queue.size() + " queued: " + e.getMessage());
+                }
+                try {
+                    Thread.sleep(Math.min(retryBackoffMs * attempt, maxRetryBackoffMs));
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    /**
+     * Appends rounds that could not be written to the database to the spill file, one JSON object per line.
+     */
+    private synchronized void spill(List<SettledRound> rounds) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (SettledRound round : rounds) {
+                lines.append(objectMapper.writeValueAsString(round)).append('\n');
+            }
+            Path parent = spillFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            Files.writeString(spillFile, lines, StandardCharsets.UTF_8,
+                    StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            spilledRounds.add(rounds.size());
+            System.err.println("Spilled " + rounds.size() + " settled rounds to " + spillFile.toAbsolutePath());
+        } catch (IOException e) {
+            lostRounds.add(rounds.size());
+            System.err.println("LOST " + rounds.size() + " settled rounds, could not write spill file "
+                    + spillFile.toAbsolutePath() + ": " + e.getMessage());
+            rounds.forEach(round -> System.err.println("Lost settled round: " + round));
+        }
+    }
+
+    private void insert(List<SettledRound> batch) {
+        List<Object[]> roundRows = new ArrayList<>(batch.size());
+        List<Object[]> betRows = new ArrayList<>();
+        for (SettledRound round : batch) {
+            roundRows.add(new Object[]{round.roundId(), round.winningNumber(), new Timestamp(round.settledAt())});
+            for (SettledRound.Bet bet : round.bets()) {
+                betRows.add(new Object[]{round.roundId(), bet.sessionId(), bet.nickname(), bet.betAmount(),
+                        bet.pickedNumber(), bet.winAmount()});
+            }
+        }
+        jdbcTemplate.batchUpdate(INSERT_ROUND, roundRows);
+        if (!betRows.isEmpty()) {
+            jdbcTemplate.batchUpdate(INSERT_BET, betRows);
+        }
+    }
+
+    /**
+     * Highest round id already stored, so round ids stay unique across restarts.
+     */
+    public long findLastRoundId() {
+        Long lastRoundId = jdbcTemplate.queryForObject("SELECT MAX(round_id) FROM settled_round", Long.class);
+        return lastRoundId == null ? 0 : lastRoundId;
+    }
+
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getMaxQueueDepth() {
+        return maxQueueDepth.get();
+    }
+
+    public long getSubmittedRounds() {
+        return submittedRounds.sum();
+    }
+
+    public long getRejectedRounds() {
+        return rejectedRounds.sum();
+    }
+
+    public long getPersistedRounds() {
+        return persistedRounds.sum();
+    }
+
+    public long getPersistedBets() {
+        return persistedBets.sum();
+    }
+
+    public long getFailedRounds() {
+        return failedRounds.sum();
+    }
+
+    public long getSpilledRounds() {
+        return spilledRounds.sum();
+    }
+
+    public long getLostRounds() {
+        return lostRounds.sum();
+    }
+
+    public long getRetries() {
+        return retries.sum();
+    }
+}
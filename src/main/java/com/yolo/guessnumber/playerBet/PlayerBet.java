@@ -5,11 +5,12 @@ import lombok.*;
 @Data
 public class PlayerBet {
     private String nickname;
-    private double betAmount;
+    // Amounts in minor units, see Money
+    private long betAmount;
     private Integer pickedNumber;
-    private double winAmount;
+    private long winAmount;
 
-    public PlayerBet(@NonNull String nickname, double betAmount, @NonNull Integer pickedNumber) {
+    public PlayerBet(@NonNull String nickname, long betAmount, @NonNull Integer pickedNumber) {
         this.nickname = nickname;
         this.betAmount = betAmount;
         this.pickedNumber = pickedNumber;
@@ -1,15 +1,29 @@
 package com.yolo.guessnumber.playerBet;
 
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yolo.guessnumber.gamelogic.Money;
 import lombok.*;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
 public class PlayerBetDTO {
     @NonNull
     private String nickname;
-    @NonNull
-    private Double betAmount;
+    // Minor units; a decimal amount on the wire
+    @JsonSerialize(using = Money.Serializer.class)
+    @JsonDeserialize(using = Money.Deserializer.class)
+    private long betAmount;
     @NonNull
     private Integer pickedNumber;
+    // Optional; when set the bet is only accepted while this round is open
+    private Long roundId;
+    // Optional; a bet resent with the same id in the same round is ignored
+    private Long requestId;
+
+    public PlayerBetDTO(@NonNull String nickname, long betAmount, @NonNull Integer pickedNumber) {
+        this.nickname = nickname;
+        this.betAmount = betAmount;
+        this.pickedNumber = pickedNumber;
+    }
 }
@@ -1,6 +1,8 @@
 package com.yolo.guessnumber.response;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.databind.annotation.JsonSerialize;
+import com.yolo.guessnumber.gamelogic.Money;
 import lombok.*;
 
 import java.util.List;
@@ -12,9 +14,16 @@ public class Response {
     private String type;
     private String message;
     private Integer winningNumber;
-    private Double winning;
+    @JsonSerialize(using = Money.Serializer.class)
+    private Long winning;
     private List<Winner> winners;
     private int timeRemaining;
+    private Long roundId;
+    // Provably-fair mode: commitment is sent when a round opens, serverSeed with its result
+    private String commitment;
+    private String serverSeed;
+    // Sent on connect; reconnect with ?resumeToken=... to keep bets and get missed messages
+    private String resumeToken;
 
     public Response(String type, String message) {
         this.type = type;
@@ -27,6 +36,7 @@ public class Response {
     @NoArgsConstructor
     public static class Winner {
         private String nickname;
-        private double winning;
+        @JsonSerialize(using = Money.Serializer.class)
+        private long winning;
     }
 }
@@ -0,0 +1,71 @@
+package com.yolo.guessnumber.service;
+
+import com.yolo.guessnumber.gamelogic.FairDraw;
+import com.yolo.guessnumber.playerBet.PlayerBet;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Bet book of a single round. Bets are added while the round is open; once {@link #close()} returns
+ * no further bet can land in the book, so it can be settled on another thread.
+ */
+public class GameRound {
+
+    @Getter
+    private final long id;
+    @Getter
+    private final Map<String, List<PlayerBet>> playerBets = new ConcurrentHashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    // Outcome committed to when the round opened, in provably-fair mode
+    @Getter
+    @Setter
+    private FairDraw fairDraw;
+    private boolean open = true;
+
+    public GameRound(long id) {
+        this.id = id;
+    }
+
+    /**
+     * Runs the action if the round still accepts bets. Actions may run concurrently with each other
+     * but never with {@link #close()}.
+     *
+     * @return false if the round was already closed
+     */
+    public boolean ifOpen(Runnable action) {
+        lock.readLock().lock();
+        try {
+            if (!open) {
+                return false;
+            }
+            action.run();
+            return true;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void close() {
+        lock.writeLock().lock();
+        try {
+            open = false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public boolean isOpen() {
+        lock.readLock().lock();
+        try {
+            return open;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+}
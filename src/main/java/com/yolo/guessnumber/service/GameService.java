@@ -1,53 +1,145 @@
 package com.yolo.guessnumber.service;
 
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.FairDraw;
 import com.yolo.guessnumber.gamelogic.GuessNumber;
+import com.yolo.guessnumber.gamelogic.Money;
+import com.yolo.guessnumber.persistence.SettledRound;
+import com.yolo.guessnumber.persistence.SettledRoundWriter;
 import com.yolo.guessnumber.playerBet.PlayerBet;
 import com.yolo.guessnumber.playerBet.PlayerBetDTO;
 import com.yolo.guessnumber.response.Response;
+import jakarta.annotation.PreDestroy;
 import lombok.Getter;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 @Service
 @Getter
 public class GameService {
 
     private static final int DEFAULT_ROUND_TIME = 10; // seconds
+    private static final int THROUGHPUT_LOG_INTERVAL = 100; // rounds
 
+    // Keyed by player id: the id of the player's first session, kept across resumes
     private final Map<String, WebSocketSession> sessions = new ConcurrentHashMap<>();
-    private final Map<String, PlayerBet> playerBets = new ConcurrentHashMap<>();
-    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+    // Resume support: token -> player id, player id -> token, resumed session id -> player id
+    private final Map<String, String> resumeTokens = new ConcurrentHashMap<>();
+    private final Map<String, String> tokensByPlayer = new ConcurrentHashMap<>();
+    private final Map<String, String> playerIds = new ConcurrentHashMap<>();
+    private final Map<String, ParkedPlayer> parkedPlayers = new ConcurrentHashMap<>();
+    private final SecureRandom tokenRandom = new SecureRandom();
+    // Broadcasts take their recipients under the read lock; parking and resuming a player hold the
+    // write lock, so a broadcast either reaches the player's buffer or the live session. No socket
+    // I/O happens under this lock: a failed send may close its session and call removeSession.
+    private final ReadWriteLock membershipLock = new ReentrantReadWriteLock();
+    private final ScheduledExecutorService scheduler;
+    // Pipelined mode settles the previous round here while the scheduler runs the open one
+    private final ExecutorService settlementExecutor;
+    private final Clock clock;
+    private final ShardedFanOut fanOut;
 
     private final GuessNumber guessNumber;
     private final WebSocketService webSocketService;
+    private final GameProperties gameProperties;
+    private final SettledRoundWriter settledRoundWriter;
 
-    private long gameStartTime;
+    // Written by the game loop only; volatile because connection threads read them
+    private volatile long gameStartTime;
+    private volatile long roundId;
+    private volatile GameRound currentRound;
+    // Client request ids seen in the open round and the one before it, for dropping resent bets. A
+    // resend can arrive after its round closed, and without a roundId it would land in the next one.
+    private volatile RequestIdSet requestIds;
+    private volatile RequestIdSet previousRequestIds;
     private final int roundTime;
-    public boolean bettingPhase = false;
-    public boolean isGameInProgress = false;
+    private final boolean pipelined;
+    public volatile boolean bettingPhase = false;
+    public volatile boolean isGameInProgress = false;
+
+    // Throughput counters
+    private volatile long loopStartTime;
+    private final LongAdder roundsSettled = new LongAdder();
+    private final LongAdder betsAccepted = new LongAdder();
+
+    // Money totals in minor units
+    private final LongAdder totalWagered = new LongAdder();
+    private final LongAdder totalPaidOut = new LongAdder();
 
     @Autowired
-    public GameService(GuessNumber guessNumber, WebSocketService webSocketService) {
-        this.guessNumber = guessNumber;
-        this.webSocketService = webSocketService;
-        roundTime = DEFAULT_ROUND_TIME;
-        startGameLoop();
+    public GameService(GuessNumber guessNumber, WebSocketService webSocketService, GameProperties gameProperties,
+                       SettledRoundWriter settledRoundWriter) {
+        this(guessNumber, webSocketService, gameProperties, settledRoundWriter, DEFAULT_ROUND_TIME);
     }
 
     public GameService(GuessNumber guessNumber, WebSocketService webSocketService, int roundTime) {
+        this(guessNumber, webSocketService, new GameProperties(), null, roundTime);
+    }
+
+    public GameService(GuessNumber guessNumber, WebSocketService webSocketService, GameProperties gameProperties,
+                       int roundTime) {
+        this(guessNumber, webSocketService, gameProperties, null, roundTime);
+    }
+
+    public GameService(GuessNumber guessNumber, WebSocketService webSocketService, GameProperties gameProperties,
+                       SettledRoundWriter settledRoundWriter, int roundTime) {
+        this(guessNumber, webSocketService, gameProperties, settledRoundWriter, roundTime,
+                newGameLoopScheduler(), Executors.newSingleThreadExecutor(), Clock.systemUTC());
+    }
+
+    // Delayed round steps are dropped on shutdown instead of running after the writer has stopped
+    private static ScheduledExecutorService newGameLoopScheduler() {
+        ScheduledThreadPoolExecutor scheduler = new ScheduledThreadPoolExecutor(1);
+        scheduler.setExecuteExistingDelayedTasksAfterShutdownPolicy(false);
+        return scheduler;
+    }
+
+    /**
+     * Runs the game loop on the given executors and reads time from the given clock. Passing a
+     * {@link com.yolo.guessnumber.simulation.VirtualScheduler} for all three runs rounds in virtual time.
+     */
+    public GameService(GuessNumber guessNumber, WebSocketService webSocketService, GameProperties gameProperties,
+                       SettledRoundWriter settledRoundWriter, int roundTime, ScheduledExecutorService scheduler,
+                       ExecutorService settlementExecutor, Clock clock) {
         this.guessNumber = guessNumber;
         this.webSocketService = webSocketService;
+        this.gameProperties = gameProperties;
+        this.settledRoundWriter = settledRoundWriter;
         this.roundTime = roundTime;
+        this.scheduler = scheduler;
+        this.settlementExecutor = settlementExecutor;
+        this.clock = clock;
+        this.requestIds = new RequestIdSet(gameProperties.getDedup().getCapacity());
+        this.previousRequestIds = new RequestIdSet(gameProperties.getDedup().getCapacity());
+        this.fanOut = new ShardedFanOut(gameProperties.getBroadcast().getShards(),
+                gameProperties.getBroadcast().getParallelThreshold());
+        if (settledRoundWriter != null) {
+            roundId = settledRoundWriter.findLastRoundId();
+        }
+        // Placeholder book until the first round starts; with roundTime < 0 bets go straight into it
+        currentRound = new GameRound(roundId + 1);
+        pipelined = gameProperties.isPipelined() && roundTime > 0;
         if (roundTime >= 0) {
             startGameLoop();
         } else {
@@ -57,83 +149,245 @@ public class GameService {
 
     //Game loop methods
     private void startGameLoop() {
-        scheduler.scheduleWithFixedDelay(this::runGameRound, 1, roundTime + 1, TimeUnit.SECONDS);
-        System.out.println("Game loop started with round time: " + roundTime + " seconds");
+        loopStartTime = clock.millis();
+        if (pipelined) {
+            scheduler.scheduleAtFixedRate(this::runPipelinedRound, 1, roundTime, TimeUnit.SECONDS);
+        } else {
+            scheduler.scheduleWithFixedDelay(this::runGameRound, 1, roundTime + 1, TimeUnit.SECONDS);
+        }
+        System.out.println("Game loop started with round time: " + roundTime + " seconds"
+                + (pipelined ? " (pipelined)" : ""));
     }
 
-    private void runGameRound() {
-        gameStartTime = System.currentTimeMillis();
-        startBettingPhase();
-
-        if (roundTime > 0) {
-            for (int i = 1; i <= roundTime; i++) {
-                final int secondsLeft = roundTime - i;
-                int even = i;
-                scheduler.schedule(() -> {
-                    if (bettingPhase && even % 2 == 0) {
-                        Response countdownMsg = new Response("COUNTDOWN", "Time remaining: " + secondsLeft + " seconds");
-                        countdownMsg.setTimeRemaining(secondsLeft);
-                        broadcastMessage(countdownMsg);
-                    }
-                }, i, TimeUnit.SECONDS);
+    /**
+     * Stops the game loop and waits for a round that is being settled, so its result is broadcast
+     * and handed to the writer before the writer and the fan-out shut down. A round that is still
+     * open is abandoned without settlement.
+     */
+    @PreDestroy
+    public void stopGameLoop() {
+        scheduler.shutdown();
+        settlementExecutor.shutdown();
+        try {
+            long timeoutSeconds = Math.max(roundTime, 0) + 1;
+            if (!scheduler.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)
+                    || !settlementExecutor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                System.err.println("Game loop did not stop within " + timeoutSeconds + " seconds");
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
+        fanOut.shutdown();
+    }
+
+    private void runGameRound() {
+        if (!tryStartBettingPhase()) {
+            return;
+        }
+        GameRound round = currentRound;
+        scheduleCountdown(round);
 
         scheduler.schedule(() -> {
             endBettingPhase();
-            Response resultMsg = processResults();
-            broadcastResult(resultMsg);
-            endOfRound();
+            settleRound(round);
         }, roundTime, TimeUnit.SECONDS);
     }
 
+    /**
+     * Closes the open round and immediately opens the next one. The closed round is settled and
+     * broadcast on the settlement thread while players already bet on the new round.
+     */
+    private void runPipelinedRound() {
+        GameRound closing = bettingPhase ? currentRound : null;
+        if (closing != null) {
+            closing.close();
+        }
+        if (tryStartBettingPhase()) {
+            scheduleCountdown(currentRound);
+        } else {
+            // Nothing is open until the next tick; the closed round is still settled
+            bettingPhase = false;
+        }
+        if (closing != null) {
+            settlementExecutor.execute(() -> settleRound(closing));
+        }
+    }
+
+    // An exception escaping a periodic task cancels it, which would stop the game loop for good
+    private boolean tryStartBettingPhase() {
+        try {
+            startBettingPhase();
+            return true;
+        } catch (RuntimeException e) {
+            System.err.println("Skipping round " + (roundId + 1) + ", it could not be opened: " + e.getMessage());
+            return false;
+        }
+    }
+
+    private void scheduleCountdown(GameRound round) {
+        for (int i = 1; i <= roundTime; i++) {
+            final int secondsLeft = roundTime - i;
+            int even = i;
+            scheduler.schedule(() -> {
+                if (bettingPhase && currentRound == round && even % 2 == 0) {
+                    Response countdownMsg = new Response("COUNTDOWN", "Time remaining: " + secondsLeft + " seconds");
+                    countdownMsg.setTimeRemaining(secondsLeft);
+                    countdownMsg.setRoundId(round.getId());
+                    broadcastMessage(countdownMsg);
+                }
+            }, i, TimeUnit.SECONDS);
+        }
+    }
+
+    private void settleRound(GameRound round) {
+        try {
+            Response resultMsg = processResults(round);
+            broadcastResult(round, resultMsg);
+            endOfRound(round);
+        } catch (Exception e) {
+            System.err.println("Error settling round " + round.getId() + ": " + e.getMessage());
+        }
+    }
+
     public void startBettingPhase() {
+        // Taken first, so a draw that is not available leaves the round id and state untouched
+        FairDraw fairDraw = guessNumber.isProvablyFair() ? guessNumber.nextFairDraw() : null;
+        gameStartTime = clock.millis();
+        GameRound round = new GameRound(++roundId);
+        // The previous round is closed, so nothing adds to its set any more. It is kept for one more
+        // round, and the set from the round before that is cleared and reused.
+        RequestIdSet recycled = previousRequestIds;
+        recycled.clear();
+        previousRequestIds = requestIds;
+        requestIds = recycled;
+        round.setFairDraw(fairDraw);
+        currentRound = round;
         bettingPhase = true;
         isGameInProgress = true;
-        System.out.println("Start of the round.");
+        System.out.println("Start of round " + roundId + ".");
         Response roundStartMsg = new Response("ROUND_START", "Round has started! " + roundTime + " seconds until the result.");
         roundStartMsg.setTimeRemaining(roundTime);
+        roundStartMsg.setRoundId(roundId);
+        setCommitment(roundStartMsg, round);
         broadcastMessage(roundStartMsg);
     }
 
     public void endBettingPhase() {
+        currentRound.close();
         bettingPhase = false;
     }
 
     public void endOfRound() {
-        System.out.println("End of round.");
-        broadcastMessage(new Response("ROUND_END", "End of round! Please wait for the next round to start."));
-        playerBets.clear();
-        isGameInProgress = false;
+        endOfRound(currentRound);
+    }
+
+    public void endOfRound(GameRound round) {
+        System.out.println("End of round " + round.getId() + ".");
+        Response roundEndMsg = new Response("ROUND_END", pipelined
+                ? "End of round! Next round is already open."
+                : "End of round! Please wait for the next round to start.");
+        roundEndMsg.setRoundId(round.getId());
+        broadcastMessage(roundEndMsg);
+        round.getPlayerBets().clear();
+        if (!pipelined) {
+            isGameInProgress = false;
+        }
+        roundsSettled.increment();
+        if (roundsSettled.sum() % THROUGHPUT_LOG_INTERVAL == 0) {
+            System.out.printf("Throughput: %.0f rounds/hour, %.2f bets/second%n",
+                    getRoundsPerHour(), getBetsPerSecond());
+        }
+    }
+
+    /**
+     * Rounds settled per hour since the game loop started; 0 before any time has passed.
+     */
+    public double getRoundsPerHour() {
+        double elapsedSeconds = elapsedSeconds();
+        return elapsedSeconds > 0 ? roundsSettled.sum() * 3600 / elapsedSeconds : 0;
+    }
+
+    /**
+     * Bets accepted per second since the game loop started; 0 before any time has passed.
+     */
+    public double getBetsPerSecond() {
+        double elapsedSeconds = elapsedSeconds();
+        return elapsedSeconds > 0 ? betsAccepted.sum() / elapsedSeconds : 0;
+    }
+
+    private double elapsedSeconds() {
+        return (clock.millis() - loopStartTime) / 1000.0;
+    }
+
+    public Map<String, List<PlayerBet>> getPlayerBets() {
+        return currentRound.getPlayerBets();
     }
 
     //Results processing methods
     public Response processResults() {
-        int winningNumber = guessNumber.getResult();
-        setWins(winningNumber);
+        return processResults(currentRound);
+    }
+
+    public Response processResults(GameRound round) {
+        FairDraw fairDraw = round.getFairDraw();
+        int winningNumber = fairDraw != null ? fairDraw.result() : guessNumber.getResult();
+        setWins(round, winningNumber);
+        if (settledRoundWriter != null) {
+            settledRoundWriter.submit(toSettledRound(round, winningNumber));
+        }
         Response resultMsg = new Response("ROUND_RESULT", "");
         resultMsg.setWinningNumber(winningNumber);
-        resultMsg.setWinners(calculateWinners());
+        resultMsg.setWinners(calculateWinners(round));
+        resultMsg.setRoundId(round.getId());
+        if (fairDraw != null) {
+            resultMsg.setCommitment(fairDraw.commitment());
+            resultMsg.setServerSeed(fairDraw.serverSeed());
+        }
         return resultMsg;
     }
 
+    private void setCommitment(Response message, GameRound round) {
+        if (round.getFairDraw() != null) {
+            message.setCommitment(round.getFairDraw().commitment());
+        }
+    }
+
     public void setWins(int pickedNumber) {
-        playerBets.forEach((sessionId, playerBet) -> {
-            double winAmount;
-            if (playerBet.getPickedNumber().equals(pickedNumber)) {
-                winAmount = playerBet.getBetAmount() * GuessNumber.MULTIPLIER;
+        setWins(currentRound, pickedNumber);
+    }
+
+    public void setWins(GameRound round, int pickedNumber) {
+        round.getPlayerBets().forEach((sessionId, bets) -> bets.forEach(playerBet -> {
+            long winAmount;
+            if (playerBet.getPickedNumber() == pickedNumber) {
+                winAmount = GuessNumber.payout(playerBet.getBetAmount());
             } else {
-                winAmount = 0f;
+                winAmount = 0;
             }
             playerBet.setWinAmount(winAmount);
-        });
+            totalWagered.add(playerBet.getBetAmount());
+            totalPaidOut.add(winAmount);
+        }));
+    }
+
+    private SettledRound toSettledRound(GameRound round, int winningNumber) {
+        List<SettledRound.Bet> bets = new ArrayList<>();
+        round.getPlayerBets().forEach((sessionId, sessionBets) -> sessionBets.forEach(bet ->
+                bets.add(new SettledRound.Bet(sessionId, bet.getNickname(), bet.getBetAmount(),
+                        bet.getPickedNumber(), bet.getWinAmount()))));
+        return new SettledRound(round.getId(), winningNumber, clock.millis(), bets);
     }
 
     public List<Response.Winner> calculateWinners() {
-        return playerBets.values().stream()
+        return calculateWinners(currentRound);
+    }
+
+    public List<Response.Winner> calculateWinners(GameRound round) {
+        return round.getPlayerBets().values().stream()
+                .flatMap(List::stream)
                 .filter(playerBet -> playerBet.getWinAmount() > 0)
                 .map(playerBet -> new Response.Winner(playerBet.getNickname(), playerBet.getWinAmount()))
-                .sorted(Comparator.comparing(Response.Winner::getWinning).reversed())
+                .sorted(Comparator.comparingLong(Response.Winner::getWinning).reversed())
                 .toList();
     }
 
@@ -148,11 +402,15 @@ public class GameService {
             return;
         }
         sessions.put(session.getId(), session);
+        String resumeToken = issueResumeToken(session.getId());
 
         if (bettingPhase) {
             long timeRemaining = getTimeRemaining();
             Response countdownMsg = new Response("COUNTDOWN", "Welcome! Round is running! Time remaining: " + timeRemaining + " seconds");
             countdownMsg.setTimeRemaining((int) timeRemaining);
+            countdownMsg.setRoundId(currentRound.getId());
+            countdownMsg.setResumeToken(resumeToken);
+            setCommitment(countdownMsg, currentRound);
             try {
                 webSocketService.sendJson(session, countdownMsg);
             } catch (IOException e) {
@@ -160,6 +418,7 @@ public class GameService {
             }
         } else {
             Response welcomeMsg = new Response("WELCOME", "Welcome! Please wait for the next round.");
+            welcomeMsg.setResumeToken(resumeToken);
             try {
                 webSocketService.sendJson(session, welcomeMsg);
             } catch (IOException e) {
@@ -168,9 +427,133 @@ public class GameService {
         }
     }
 
+    /**
+     * Reattaches a reconnecting player within the grace period. The player keeps their bets and
+     * only receives the messages they missed, instead of a fresh welcome. If the old connection
+     * still looks live, e.g. because the server has not seen its close yet, the new connection
+     * takes it over and the old one is closed.
+     *
+     * @return false if the token is unknown or expired; the caller should fall back to {@link #addSession}
+     */
+    public boolean resumeSession(WebSocketSession session, String resumeToken) {
+        if (session == null || !session.isOpen() || resumeToken == null) {
+            return false;
+        }
+        String playerId = resumeTokens.get(resumeToken);
+        if (playerId == null) {
+            return false;
+        }
+        WebSocketSession staleSession;
+        List<Response> missed = List.of();
+        // Holding the new session's monitor until the replay is sent makes any broadcast that sees
+        // the new session wait in WebSocketService.sendText, so it can't overtake the replay
+        synchronized (session) {
+            Response resumedMsg;
+            boolean overflowed = false;
+            membershipLock.writeLock().lock();
+            try {
+                // Rotated or expired while we waited for the lock
+                if (!resumeToken.equals(tokensByPlayer.get(playerId))) {
+                    return false;
+                }
+                ParkedPlayer parkedPlayer = parkedPlayers.remove(playerId);
+                if (parkedPlayer != null) {
+                    staleSession = null;
+                    missed = parkedPlayer.resume();
+                    overflowed = parkedPlayer.isOverflowed();
+                } else {
+                    staleSession = sessions.get(playerId);
+                    if (staleSession == null) {
+                        return false;
+                    }
+                    playerIds.remove(staleSession.getId());
+                }
+                if (!playerId.equals(session.getId())) {
+                    playerIds.put(session.getId(), playerId);
+                }
+                sessions.put(playerId, session);
+                resumeTokens.remove(resumeToken);
+                String newToken = issueResumeToken(playerId);
+
+                resumedMsg = new Response("RESUMED", overflowed
+                        ? "Welcome back! Some messages were lost, showing the latest " + missed.size() + "."
+                        : "Welcome back! " + missed.size() + " missed messages follow.");
+                resumedMsg.setResumeToken(newToken);
+                resumedMsg.setRoundId(currentRound.getId());
+                if (bettingPhase) {
+                    resumedMsg.setTimeRemaining((int) getTimeRemaining());
+                }
+            } finally {
+                membershipLock.writeLock().unlock();
+            }
+            try {
+                webSocketService.sendJson(session, resumedMsg);
+                for (Response message : missed) {
+                    webSocketService.sendJson(session, message);
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        if (staleSession != null && staleSession != session) {
+            try {
+                staleSession.close(CloseStatus.NORMAL.withReason("Resumed on another connection"));
+            } catch (IOException e) {
+                System.err.println("Error closing replaced session " + staleSession.getId() + ": " + e.getMessage());
+            }
+        }
+        System.out.println("Session " + session.getId() + " resumed player " + playerId);
+        return true;
+    }
+
     public void removeSession(WebSocketSession session) {
-        sessions.remove(session.getId());
-        playerBets.remove(session.getId());
+        membershipLock.writeLock().lock();
+        try {
+            String playerId = playerIds.getOrDefault(session.getId(), session.getId());
+            // A connection replaced by a resume is no longer registered, so this is a no-op for it
+            if (!sessions.remove(playerId, session)) {
+                return;
+            }
+            playerIds.remove(session.getId());
+            int graceSeconds = gameProperties.getResume().getGraceSeconds();
+            if (graceSeconds > 0 && tokensByPlayer.containsKey(playerId)) {
+                ParkedPlayer parkedPlayer = new ParkedPlayer(playerId, gameProperties.getResume().getBufferSize());
+                parkedPlayers.put(playerId, parkedPlayer);
+                parkedPlayer.setExpiry(scheduler.schedule(() -> expire(parkedPlayer), graceSeconds, TimeUnit.SECONDS));
+            } else {
+                forgetPlayer(playerId);
+            }
+        } finally {
+            membershipLock.writeLock().unlock();
+        }
+    }
+
+    private void expire(ParkedPlayer parkedPlayer) {
+        membershipLock.writeLock().lock();
+        try {
+            if (parkedPlayers.remove(parkedPlayer.getPlayerId(), parkedPlayer)) {
+                forgetPlayer(parkedPlayer.getPlayerId());
+            }
+        } finally {
+            membershipLock.writeLock().unlock();
+        }
+    }
+
+    private void forgetPlayer(String playerId) {
+        currentRound.getPlayerBets().remove(playerId);
+        String token = tokensByPlayer.remove(playerId);
+        if (token != null) {
+            resumeTokens.remove(token);
+        }
+    }
+
+    private String issueResumeToken(String playerId) {
+        byte[] bytes = new byte[16];
+        tokenRandom.nextBytes(bytes);
+        String token = Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+        resumeTokens.put(token, playerId);
+        tokensByPlayer.put(playerId, token);
+        return token;
     }
 
     public void processPlayerBet(String sessionId, PlayerBetDTO playerBetDTO) throws IOException {
@@ -178,43 +561,192 @@ public class GameService {
             System.out.println("Session ID or PlayerBet is null");
             return;
         }
+        processPlayerBets(sessionId, List.of(playerBetDTO));
+    }
+
+    /**
+     * Adds a batch of bets to the session's bets for this round. The batch is all-or-nothing:
+     * if any bet is invalid or the session would exceed its per-round limit, none are added.
+     * Bets whose request id was already accepted this round are resends and are skipped.
+     */
+    public void processPlayerBets(String connectionId, List<PlayerBetDTO> playerBetDTOs) throws IOException {
+        if (connectionId == null || playerBetDTOs == null || playerBetDTOs.isEmpty()) {
+            System.out.println("Session ID or PlayerBets are empty");
+            return;
+        }
+        // A resumed connection keeps betting as the player it took over
+        String sessionId = playerIds.getOrDefault(connectionId, connectionId);
+        GameRound round = currentRound;
         if (!bettingPhase) {
             System.out.println("Betting phase is over. Bet rejected for session: " + sessionId);
-            webSocketService.sendJson(sessions.get(sessionId),
-                    new Response("ERROR", "Betting phase is over. Please wait for the next round."));
+            sendError(sessionId, "Betting phase is over. Please wait for the next round.");
+            return;
+        }
+        for (PlayerBetDTO playerBetDTO : playerBetDTOs) {
+            Long betRoundId = playerBetDTO.getRoundId();
+            if (betRoundId != null && betRoundId != round.getId()) {
+                System.out.println("Bet for round " + betRoundId + " rejected for session: " + sessionId);
+                sendError(sessionId, "Round " + betRoundId + " is not open for bets. Current round is "
+                        + round.getId() + ".");
+                return;
+            }
+        }
+        int maxPerFrame = gameProperties.getBets().getMaxPerFrame();
+        if (playerBetDTOs.size() > maxPerFrame) {
+            System.out.println("Too many bets in one message from session: " + sessionId);
+            sendError(sessionId, "Too many bets in one message. Maximum is " + maxPerFrame + ".");
             return;
         }
+        long maxAmount = gameProperties.getBets().getMaxAmount();
+        int maxNicknameLength = gameProperties.getBets().getMaxNicknameLength();
+        for (PlayerBetDTO playerBetDTO : playerBetDTOs) {
+            if (playerBetDTO.getBetAmount() > maxAmount) {
+                System.out.println("Bet amount over the limit rejected for session: " + sessionId);
+                sendError(sessionId, "Bet amount too large. Maximum is " + Money.format(maxAmount) + ".");
+                return;
+            }
+            if (playerBetDTO.getNickname() != null && playerBetDTO.getNickname().length() > maxNicknameLength) {
+                System.out.println("Nickname over the limit rejected for session: " + sessionId);
+                sendError(sessionId, "Nickname too long. Maximum is " + maxNicknameLength + " characters.");
+                return;
+            }
+        }
+        List<PlayerBet> batch = new ArrayList<>(playerBetDTOs.size());
         try {
-            PlayerBet playerBet = new PlayerBet(playerBetDTO.getNickname(), playerBetDTO.getBetAmount(),
-                    playerBetDTO.getPickedNumber());
-            playerBets.put(sessionId, playerBet);
+            for (PlayerBetDTO playerBetDTO : playerBetDTOs) {
+                if (playerBetDTO.getBetAmount() <= 0) {
+                    throw new IllegalArgumentException("Bet amount must be positive");
+                }
+                batch.add(new PlayerBet(playerBetDTO.getNickname(), playerBetDTO.getBetAmount(),
+                        playerBetDTO.getPickedNumber()));
+            }
         } catch (Exception e) {
             System.err.println("Error processing player bet: " + e.getMessage());
+            return;
+        }
+
+        long[] requestKeys = requestKeys(sessionId, playerBetDTOs);
+
+        int maxPerSession = gameProperties.getBets().getMaxPerSession();
+        int[] acceptedCount = {0};
+        int[] duplicateCount = {0};
+        // compute() holds the session's entry, so a bet and its resend can't both pass the check
+        boolean open = round.ifOpen(() -> round.getPlayerBets().compute(sessionId, (id, bets) -> {
+            List<PlayerBet> fresh = batch;
+            if (requestKeys != null) {
+                fresh = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++) {
+                    if (!isDuplicate(requestKeys, i)) {
+                        fresh.add(batch.get(i));
+                    }
+                }
+                duplicateCount[0] = batch.size() - fresh.size();
+                if (fresh.isEmpty()) {
+                    return bets;
+                }
+            }
+            int existing = bets == null ? 0 : bets.size();
+            if (existing + fresh.size() > maxPerSession) {
+                return bets;
+            }
+            List<PlayerBet> merged = new ArrayList<>(existing + fresh.size());
+            if (bets != null) {
+                merged.addAll(bets);
+            }
+            merged.addAll(fresh);
+            if (requestKeys != null) {
+                for (long requestKey : requestKeys) {
+                    if (requestKey != 0) {
+                        requestIds.add(requestKey);
+                    }
+                }
+            }
+            acceptedCount[0] = fresh.size();
+            return List.copyOf(merged);
+        }));
+        if (!open) {
+            System.out.println("Round " + round.getId() + " closed. Bet rejected for session: " + sessionId);
+            sendError(sessionId, "Betting phase is over. Please wait for the next round.");
+            return;
+        }
+        if (duplicateCount[0] > 0) {
+            System.out.println("Ignored " + duplicateCount[0] + " resent bets from session: " + sessionId);
+        }
+        if (acceptedCount[0] > 0) {
+            betsAccepted.add(acceptedCount[0]);
+        } else if (duplicateCount[0] < batch.size()) {
+            System.out.println("Bet limit reached. Bets rejected for session: " + sessionId);
+            sendError(sessionId, "Bet limit reached. Maximum is " + maxPerSession + " bets per round.");
+        }
+    }
+
+    // One key per bet, 0 where the client sent no request id; null if no bet has one
+    private static long[] requestKeys(String sessionId, List<PlayerBetDTO> playerBetDTOs) {
+        long[] keys = null;
+        for (int i = 0; i < playerBetDTOs.size(); i++) {
+            Long requestId = playerBetDTOs.get(i).getRequestId();
+            if (requestId != null) {
+                if (keys == null) {
+                    keys = new long[playerBetDTOs.size()];
+                }
+                keys[i] = RequestIdSet.key(sessionId, requestId);
+            }
+        }
+        return keys;
+    }
+
+    private boolean isDuplicate(long[] requestKeys, int index) {
+        long key = requestKeys[index];
+        if (key == 0) {
+            return false;
+        }
+        if (requestIds.contains(key) || previousRequestIds.contains(key)) {
+            return true;
+        }
+        for (int i = 0; i < index; i++) {
+            if (requestKeys[i] == key) {
+                return true;
+            }
         }
+        return false;
+    }
+
+    private void sendError(String sessionId, String message) throws IOException {
+        webSocketService.sendJson(sessions.get(sessionId), new Response("ERROR", message));
     }
 
     private long getTimeRemaining() {
-        long elapsedTime = (System.currentTimeMillis() - gameStartTime) / 1000;
+        long elapsedTime = (clock.millis() - gameStartTime) / 1000;
         return roundTime - elapsedTime;
     }
 
     //Broadcasting methods
     public void broadcastResult(Response resultMsg) {
-        playerBets.forEach((key, bet) -> {
-            String message;
-            if (bet.getWinAmount() > 0) {
-                message = "Congratulations " + bet.getNickname() + "! You won: " + bet.getWinAmount();
-            } else {
-                message = "Sorry " + bet.getNickname() + ", better luck next time!";
+        broadcastResult(currentRound, resultMsg);
+    }
+
+    public void broadcastResult(GameRound round, Response resultMsg) {
+        Map<String, WebSocketSession> recipients;
+        membershipLock.readLock().lock();
+        try {
+            recipients = new HashMap<>(sessions);
+            if (!parkedPlayers.isEmpty()) {
+                round.getPlayerBets().forEach((key, bets) -> {
+                    ParkedPlayer parkedPlayer = parkedPlayers.get(key);
+                    if (parkedPlayer != null) {
+                        parkedPlayer.buffer(resultFor(round, resultMsg, bets));
+                    }
+                });
             }
-            Response winMsg = new Response("ROUND_RESULT", message);
-            winMsg.setWinningNumber(resultMsg.getWinningNumber());
-            winMsg.setWinning(bet.getWinAmount());
-            winMsg.setWinners(resultMsg.getWinners());
-            WebSocketSession session = sessions.get(key);
+        } finally {
+            membershipLock.readLock().unlock();
+        }
+        // The personalised message is built on the shard that sends it
+        fanOut.forEach(round.getPlayerBets().entrySet(), Map.Entry::getKey, entry -> {
+            WebSocketSession session = recipients.get(entry.getKey());
             if (session != null && session.isOpen()) {
                 try {
-                    webSocketService.sendJson(session, winMsg);
+                    webSocketService.sendJson(session, resultFor(round, resultMsg, entry.getValue()));
                 } catch (Exception e) {
                     e.printStackTrace();
                 }
@@ -222,9 +754,40 @@ public class GameService {
         });
     }
 
+    private Response resultFor(GameRound round, Response resultMsg, List<PlayerBet> bets) {
+        String nickname = bets.get(0).getNickname();
+        long winAmount = 0;
+        for (PlayerBet bet : bets) {
+            winAmount += bet.getWinAmount();
+        }
+        String message;
+        if (winAmount > 0) {
+            message = "Congratulations " + nickname + "! You won: " + Money.format(winAmount);
+        } else {
+            message = "Sorry " + nickname + ", better luck next time!";
+        }
+        Response winMsg = new Response("ROUND_RESULT", message);
+        winMsg.setWinningNumber(resultMsg.getWinningNumber());
+        winMsg.setWinning(winAmount);
+        winMsg.setWinners(resultMsg.getWinners());
+        winMsg.setRoundId(round.getId());
+        winMsg.setCommitment(resultMsg.getCommitment());
+        winMsg.setServerSeed(resultMsg.getServerSeed());
+        return winMsg;
+    }
 
     public void broadcastMessage(Response message) {
-        sessions.values().forEach(session -> {
+        List<WebSocketSession> recipients;
+        membershipLock.readLock().lock();
+        try {
+            recipients = new ArrayList<>(sessions.values());
+            if (!parkedPlayers.isEmpty()) {
+                parkedPlayers.values().forEach(parkedPlayer -> parkedPlayer.buffer(message));
+            }
+        } finally {
+            membershipLock.readLock().unlock();
+        }
+        fanOut.forEach(recipients, WebSocketSession::getId, session -> {
             if (session.isOpen()) {
                 try {
                     webSocketService.sendJson(session, message);
@@ -0,0 +1,61 @@
+package com.yolo.guessnumber.service;
+
+import com.yolo.guessnumber.response.Response;
+import lombok.Getter;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * A player whose connection dropped and who may still resume. Their bets stay in the bet book and
+ * messages they miss are kept in a small buffer, oldest dropped first, until they resume or the
+ * grace period expires.
+ */
+public class ParkedPlayer {
+
+    @Getter
+    private final String playerId;
+    private final int bufferSize;
+    private final ArrayDeque<Response> missed;
+    private ScheduledFuture<?> expiry;
+    private boolean overflowed;
+    private boolean resumed;
+
+    public ParkedPlayer(String playerId, int bufferSize) {
+        this.playerId = playerId;
+        this.bufferSize = bufferSize;
+        this.missed = new ArrayDeque<>(bufferSize);
+    }
+
+    synchronized void setExpiry(ScheduledFuture<?> expiry) {
+        this.expiry = expiry;
+    }
+
+    public synchronized void buffer(Response message) {
+        if (resumed || bufferSize == 0) {
+            return;
+        }
+        if (missed.size() == bufferSize) {
+            missed.pollFirst();
+            overflowed = true;
+        }
+        missed.addLast(message);
+    }
+
+    /**
+     * Stops buffering and returns what was missed, oldest first.
+     */
+    public synchronized List<Response> resume() {
+        resumed = true;
+        if (expiry != null) {
+            expiry.cancel(false);
+        }
+        return new ArrayList<>(missed);
+    }
+
+    public synchronized boolean isOverflowed() {
+        return overflowed;
+    }
+}
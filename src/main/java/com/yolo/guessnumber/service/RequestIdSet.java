@@ -0,0 +1,117 @@
+package com.yolo.guessnumber.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-capacity set of client request keys seen in one round, cleared before it is reused for another.
+ * Open addressing with linear probing over a primitive array: lookups and inserts are O(1) expected,
+ * lock-free and allocation-free. Once the set is full, new keys are not remembered (counted in
+ * {@link #getOverflows()}), so a retry of such a request is treated as a new bet.
+ */
+public class RequestIdSet {
+
+    private static final long EMPTY = 0;
+
+    private final AtomicLongArray slots;
+    private final int mask;
+    private final int maxSize;
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder overflows = new LongAdder();
+
+    public RequestIdSet(int capacity) {
+        // Power of two at least twice the capacity, so the table stays at most half full
+        int tableSize = Integer.highestOneBit(Math.max(1, capacity) * 4 - 1);
+        this.slots = new AtomicLongArray(tableSize);
+        this.mask = tableSize - 1;
+        this.maxSize = capacity;
+    }
+
+    /**
+     * Combines a session id and a client request id into a non-zero 64-bit key.
+     */
+    public static long key(String sessionId, long requestId) {
+        long hash = 0xcbf29ce484222325L; // FNV-1a over the session id
+        for (int i = 0; i < sessionId.length(); i++) {
+            hash ^= sessionId.charAt(i);
+            hash *= 0x100000001b3L;
+        }
+        long key = mix(hash ^ mix(requestId));
+        return key == EMPTY ? 1 : key;
+    }
+
+    public boolean contains(long key) {
+        int index = indexOf(key);
+        for (int probe = 0; probe <= mask; probe++) {
+            long current = slots.get(index);
+            if (current == key) {
+                return true;
+            }
+            if (current == EMPTY) {
+                return false;
+            }
+            index = (index + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * @return false if the key was already present
+     */
+    public boolean add(long key) {
+        int index = indexOf(key);
+        for (int probe = 0; probe <= mask; probe++) {
+            long current = slots.get(index);
+            if (current == key) {
+                return false;
+            }
+            if (current == EMPTY) {
+                if (size.get() >= maxSize) {
+                    overflows.increment();
+                    return true;
+                }
+                if (slots.compareAndSet(index, EMPTY, key)) {
+                    size.incrementAndGet();
+                    return true;
+                }
+                // Lost the slot to another insert; it may have been the same key
+                if (slots.get(index) == key) {
+                    return false;
+                }
+            }
+            index = (index + 1) & mask;
+        }
+        overflows.increment();
+        return true;
+    }
+
+    public void clear() {
+        for (int i = 0; i <= mask; i++) {
+            slots.set(i, EMPTY);
+        }
+        size.set(0);
+    }
+
+    public int size() {
+        return size.get();
+    }
+
+    public long getOverflows() {
+        return overflows.sum();
+    }
+
+    private int indexOf(long key) {
+        return (int) (key ^ (key >>> 32)) & mask;
+    }
+
+    // MurmurHash3 finalizer
+    private static long mix(long value) {
+        value ^= value >>> 33;
+        value *= 0xff51afd7ed558ccdL;
+        value ^= value >>> 33;
+        value *= 0xc4ceb93fe53a87cdL;
+        value ^= value >>> 33;
+        return value;
+    }
+}
@@ -0,0 +1,90 @@
+package com.yolo.guessnumber.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Runs a broadcast across a fixed set of shards in parallel. A session always maps to the same shard
+ * (by id hash) and each shard has a single worker thread, so sends to one session never overlap or
+ * reorder. Small broadcasts run inline on the caller, where handing off would cost more than it saves.
+ */
+public class ShardedFanOut {
+
+    private final ExecutorService[] workers;
+    private final int parallelThreshold;
+
+    public ShardedFanOut(int shardCount, int parallelThreshold) {
+        int shards = shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+        this.workers = new ExecutorService[shards];
+        this.parallelThreshold = parallelThreshold;
+        if (shards > 1) {
+            for (int i = 0; i < shards; i++) {
+                String name = "broadcast-shard-" + i;
+                workers[i] = Executors.newSingleThreadExecutor(runnable -> {
+                    Thread thread = new Thread(runnable, name);
+                    thread.setDaemon(true);
+                    return thread;
+                });
+            }
+        }
+    }
+
+    public int getShardCount() {
+        return workers.length;
+    }
+
+    public int shardOf(String sessionId) {
+        return sessionId == null ? 0 : Math.floorMod(sessionId.hashCode(), workers.length);
+    }
+
+    /**
+     * Applies the action to every item, one shard per worker, and returns once all shards are done.
+     */
+    public <T> void forEach(Collection<T> items, Function<T, String> sessionIdOf, Consumer<T> action) {
+        if (workers.length == 1 || items.size() < parallelThreshold) {
+            items.forEach(action);
+            return;
+        }
+        List<List<T>> shards = new ArrayList<>(workers.length);
+        int expectedPerShard = items.size() / workers.length + 1;
+        for (int i = 0; i < workers.length; i++) {
+            shards.add(new ArrayList<>(expectedPerShard));
+        }
+        for (T item : items) {
+            shards.get(shardOf(sessionIdOf.apply(item))).add(item);
+        }
+
+        List<Future<?>> pending = new ArrayList<>(workers.length);
+        for (int i = 0; i < workers.length; i++) {
+            List<T> shard = shards.get(i);
+            if (!shard.isEmpty()) {
+                pending.add(workers[i].submit(() -> shard.forEach(action)));
+            }
+        }
+        for (Future<?> future : pending) {
+            try {
+                future.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException e) {
+                System.err.println("Broadcast shard failed: " + e.getCause().getMessage());
+            }
+        }
+    }
+
+    public void shutdown() {
+        for (ExecutorService worker : workers) {
+            if (worker != null) {
+                worker.shutdown();
+            }
+        }
+    }
+}
@@ -15,6 +15,13 @@ public class WebSocketService {
 
     public void sendJson(WebSocketSession session, Response response) throws IOException {
         String json = objectMapper.writeValueAsString(response);
-        session.sendMessage(new TextMessage(json));
+        sendText(session, json);
+    }
+
+    // A session must not be written from two threads at once, e.g. an ack racing a broadcast
+    public void sendText(WebSocketSession session, String text) throws IOException {
+        synchronized (session) {
+            session.sendMessage(new TextMessage(text));
+        }
     }
 }
@@ -0,0 +1,147 @@
+package com.yolo.guessnumber.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.GuessNumber;
+import com.yolo.guessnumber.service.GameService;
+import com.yolo.guessnumber.service.WebSocketService;
+import lombok.Getter;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * Runs the real {@link GameService} round pipeline in virtual time with in-memory sessions and a
+ * seeded draw. Rounds take no wall-clock time, so thousands of full rounds run per second, and
+ * replaying the same bet stream with the same seed always produces the same frames.
+ * Every session in the stream joins before the first round opens, which is at 1 second.
+ */
+public class GameSimulator {
+
+    private static final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Getter
+    private final GameProperties gameProperties = new GameProperties();
+    private final int roundTime;
+    private final long seed;
+
+    public GameSimulator(int roundTime, long seed) {
+        if (roundTime <= 0) {
+            throw new IllegalArgumentException("Round time must be positive: " + roundTime);
+        }
+        this.roundTime = roundTime;
+        this.seed = seed;
+    }
+
+    /**
+     * Reads a bet stream with one JSON {@link RecordedBet} per line. Blank lines are skipped.
+     */
+    public static List<RecordedBet> readBetStream(BufferedReader reader) throws IOException {
+        List<RecordedBet> bets = new ArrayList<>();
+        String line;
+        while ((line = reader.readLine()) != null) {
+            if (!line.isBlank()) {
+                bets.add(objectMapper.readValue(line, RecordedBet.class));
+            }
+        }
+        return bets;
+    }
+
+    /**
+     * Virtual time at which the given round (counting from 1) opens for bets.
+     */
+    public long roundStartMillis(long round) {
+        long period = gameProperties.isPipelined() ? roundTime : roundTime + 1;
+        return (1 + (round - 1) * period) * 1000;
+    }
+
+    /**
+     * Replays the bets until the given number of rounds has been settled.
+     */
+    public SimulationResult run(List<RecordedBet> bets, long rounds) {
+        // Broadcasts run inline on the simulation thread
+        gameProperties.getBroadcast().setShards(1);
+
+        long startNanos = System.nanoTime();
+        VirtualScheduler scheduler = new VirtualScheduler(0);
+        GameService gameService = new GameService(new GuessNumber(seed), new WebSocketService(), gameProperties,
+                null, roundTime, scheduler, scheduler, scheduler.getClock());
+        FrameRecorder recorder = new FrameRecorder();
+
+        Map<String, InMemoryWebSocketSession> sessions = new LinkedHashMap<>();
+        for (RecordedBet bet : bets) {
+            sessions.computeIfAbsent(bet.sessionId(), id -> new InMemoryWebSocketSession(id, recorder));
+        }
+        sessions.values().forEach(gameService::addSession);
+        // Join frames carry random resume tokens, so only what follows is recorded
+        recorder.recording = true;
+
+        List<RecordedBet> ordered = new ArrayList<>(bets);
+        ordered.sort(Comparator.comparingLong(RecordedBet::atMillis));
+        scheduleNext(scheduler, gameService, ordered.iterator());
+
+        scheduler.advanceUntil(() -> gameService.getRoundsSettled().sum() >= rounds);
+        gameService.stopGameLoop();
+
+        return new SimulationResult(gameService.getRoundsSettled().sum(), gameService.getBetsAccepted().sum(),
+                gameService.getTotalWagered().sum(), gameService.getTotalPaidOut().sum(), recorder.messages,
+                HexFormat.of().formatHex(recorder.digest.digest()), scheduler.now(), System.nanoTime() - startNanos);
+    }
+
+    // Bets are scheduled one at a time so the queue stays small for long streams
+    private void scheduleNext(VirtualScheduler scheduler, GameService gameService, Iterator<RecordedBet> bets) {
+        if (!bets.hasNext()) {
+            return;
+        }
+        RecordedBet bet = bets.next();
+        scheduler.schedule(() -> {
+            try {
+                gameService.processPlayerBet(bet.sessionId(), bet.bet());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                scheduleNext(scheduler, gameService, bets);
+            }
+        }, Math.max(0, bet.atMillis() - scheduler.now()), TimeUnit.MILLISECONDS);
+    }
+
+    private static class FrameRecorder implements BiConsumer<String, String> {
+
+        private final MessageDigest digest;
+        private long messages;
+        private boolean recording;
+
+        FrameRecorder() {
+            try {
+                digest = MessageDigest.getInstance("SHA-256");
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not available", e);
+            }
+        }
+
+        @Override
+        public void accept(String sessionId, String payload) {
+            if (!recording) {
+                return;
+            }
+            messages++;
+            digest.update(sessionId.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(payload.getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.yolo.guessnumber.simulation;
+
+import com.yolo.guessnumber.playerBet.PlayerBetDTO;
+
+/**
+ * A bet as it arrived: milliseconds since the simulation started, the sending session and the bet itself.
+ */
+public record RecordedBet(long atMillis, String sessionId, PlayerBetDTO bet) {
+}
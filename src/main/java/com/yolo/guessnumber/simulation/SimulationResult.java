@@ -0,0 +1,17 @@
+package com.yolo.guessnumber.simulation;
+
+/**
+ * Outcome of a simulation run. Money is in minor units. {@code digest} is a SHA-256 over every frame
+ * sent to players after they joined, so two runs with the same seed and bet stream have the same digest.
+ */
+public record SimulationResult(long rounds, long betsAccepted, long totalWagered, long totalPaidOut,
+                               long messagesSent, String digest, long virtualMillis, long wallNanos) {
+
+    public double rtp() {
+        return totalWagered == 0 ? 0 : (double) totalPaidOut / totalWagered;
+    }
+
+    public double roundsPerSecond() {
+        return wallNanos == 0 ? 0 : rounds * 1_000_000_000.0 / wallNanos;
+    }
+}
@@ -0,0 +1,235 @@
+package com.yolo.guessnumber.simulation;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+/**
+ * Scheduled executor over virtual time. Nothing runs on its own: tasks run on the calling thread when
+ * time is advanced, in order of due time and then of submission, and the clock jumps straight to the
+ * next due task. A run is therefore fully deterministic and as fast as the tasks themselves.
+ * Not thread-safe; all tasks must be submitted from the thread that advances time.
+ */
+public class VirtualScheduler extends AbstractExecutorService implements ScheduledExecutorService {
+
+    private final PriorityQueue<VirtualTask<?>> queue = new PriorityQueue<>();
+    private final Clock clock = new VirtualClock();
+    private long now;
+    private long sequence;
+    private long tasksRun;
+    private boolean shutdown;
+
+    public VirtualScheduler(long startMillis) {
+        this.now = startMillis;
+    }
+
+    /**
+     * Clock that reads this scheduler's virtual time.
+     */
+    public Clock getClock() {
+        return clock;
+    }
+
+    public long now() {
+        return now;
+    }
+
+    public long getTasksRun() {
+        return tasksRun;
+    }
+
+    public int pendingTasks() {
+        return queue.size();
+    }
+
+    /**
+     * Moves time to the next due task and runs it.
+     *
+     * @return false if nothing is scheduled
+     */
+    public boolean runNext() {
+        VirtualTask<?> task = queue.poll();
+        if (task == null) {
+            return false;
+        }
+        now = Math.max(now, task.time);
+        tasksRun++;
+        task.run();
+        return true;
+    }
+
+    /**
+     * Runs every task due within the next {@code millis} and leaves the clock at the end of that window.
+     */
+    public void advanceBy(long millis) {
+        long target = now + millis;
+        while (!queue.isEmpty() && queue.peek().time <= target) {
+            runNext();
+        }
+        now = target;
+    }
+
+    /**
+     * Runs tasks until the condition holds.
+     *
+     * @return false if the queue ran empty first
+     */
+    public boolean advanceUntil(BooleanSupplier condition) {
+        while (!condition.getAsBoolean()) {
+            if (!runNext()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        return enqueue(new VirtualTask<>(Executors.callable(command, null), now + unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        return enqueue(new VirtualTask<>(callable, now + unit.toMillis(delay), 0));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        return enqueue(new VirtualTask<>(command, now + unit.toMillis(initialDelay), unit.toMillis(period)));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        // Tasks take no virtual time, so a fixed delay and a fixed rate are the same schedule
+        return scheduleAtFixedRate(command, initialDelay, delay, unit);
+    }
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+        queue.clear();
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>(queue);
+        queue.clear();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private <V> VirtualTask<V> enqueue(VirtualTask<V> task) {
+        if (!shutdown) {
+            queue.add(task);
+        } else {
+            task.cancel(false);
+        }
+        return task;
+    }
+
+    private class VirtualTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        private long time;
+        private long order = sequence++;
+        private final long period;
+
+        VirtualTask(Callable<V> callable, long time, long period) {
+            super(callable);
+            this.time = time;
+            this.period = period;
+        }
+
+        VirtualTask(Runnable runnable, long time, long period) {
+            super(runnable, null);
+            this.time = time;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period > 0;
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset()) {
+                time += period;
+                order = sequence++;
+                enqueue(this);
+            }
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other instanceof VirtualTask<?> task) {
+                int byTime = Long.compare(time, task.time);
+                return byTime != 0 ? byTime : Long.compare(order, task.order);
+            }
+            return Long.compare(getDelay(TimeUnit.MILLISECONDS), other.getDelay(TimeUnit.MILLISECONDS));
+        }
+    }
+
+    private class VirtualClock extends Clock {
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public long millis() {
+            return now;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(now);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.yolo.guessnumber.validator;
 
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import org.springframework.stereotype.Component;
 
@@ -9,12 +10,18 @@ public class RequestValidator {
     ObjectMapper objectMapper = new ObjectMapper();
 
     public void isValidRequest(String message) {
+        validateRequest(message);
+    }
+
+    /**
+     * Validates the message and returns the parsed JSON so callers don't have to parse it again.
+     */
+    public JsonNode validateRequest(String message) {
         if (message == null || message.isEmpty()) {
             throw new IllegalArgumentException("Request message cannot be null or empty.");
         }
         try {
-            objectMapper.readTree(message);
-
+            return objectMapper.readTree(message);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid JSON format: Unrecognized token '" + e.getMessage() + "'");
         }
@@ -0,0 +1,15 @@
+CREATE TABLE IF NOT EXISTS settled_round (
+    round_id       BIGINT    PRIMARY KEY,
+    winning_number INT       NOT NULL,
+    settled_at     TIMESTAMP NOT NULL
+);
+
+CREATE TABLE IF NOT EXISTS settled_bet (
+    id             BIGINT AUTO_INCREMENT PRIMARY KEY,
+    round_id       BIGINT       NOT NULL REFERENCES settled_round (round_id),
+    session_id     VARCHAR(255) NOT NULL,
+    nickname       VARCHAR(255) NOT NULL,
+    bet_amount     BIGINT       NOT NULL, -- minor units (cents)
+    picked_number  INT          NOT NULL,
+    win_amount     BIGINT       NOT NULL  -- minor units (cents)
+);
@@ -0,0 +1,50 @@
+package com.yolo.guessnumber.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.ApplicationContext;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.reactive.socket.WebSocketMessage;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Starts the real reactive stack: Netty server factory, /ws handler mapping and adapter
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT, properties = {
+        "spring.main.web-application-type=reactive",
+        "spring.datasource.url=jdbc:h2:mem:reactive-config-test;DB_CLOSE_DELAY=-1",
+        "game.persistence.spill-file=./build/reactive-config-test-spill.jsonl"
+})
+@ActiveProfiles("reactive")
+class ReactiveWebSocketConfigTest {
+
+    @LocalServerPort
+    private int port;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void testReactiveProfileServesWebSocketOnNetty() {
+        assertThat(context.getBeansOfType(NettyReactiveWebServerFactory.class)).hasSize(1);
+        assertThat(context.containsBean("webSocketConfig")).isFalse();
+
+        AtomicReference<String> firstFrame = new AtomicReference<>();
+        new ReactorNettyWebSocketClient()
+                .execute(URI.create("ws://localhost:" + port + "/ws"), session -> session.receive()
+                        .map(WebSocketMessage::getPayloadAsText)
+                        .take(1)
+                        .doOnNext(firstFrame::set)
+                        .then())
+                .block(Duration.ofSeconds(10));
+
+        assertThat(firstFrame.get()).contains("Welcome!").contains("resumeToken");
+    }
+}
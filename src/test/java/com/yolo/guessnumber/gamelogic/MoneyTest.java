@@ -0,0 +1,54 @@
+package com.yolo.guessnumber.gamelogic;
+
+import com.fasterxml.jackson.databind.JsonMappingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.yolo.guessnumber.playerBet.PlayerBetDTO;
+import com.yolo.guessnumber.response.Response;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MoneyTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void testPayoutIsExact() {
+        assertThat(GuessNumber.payout(10_000)).isEqualTo(99_000);
+        assertThat(GuessNumber.payout(1)).isEqualTo(9); // 9.9 cents rounds down
+        assertThat(GuessNumber.payout(Money.toMinor(new BigDecimal("0.10")))).isEqualTo(99);
+    }
+
+    @Test
+    void testBetAmountAcceptsNumbersAndStrings() throws Exception {
+        PlayerBetDTO fromString = objectMapper.readValue(
+                "{\"nickname\":\"john\", \"betAmount\":\"1\", \"pickedNumber\":\"7\"}", PlayerBetDTO.class);
+        PlayerBetDTO fromNumber = objectMapper.readValue(
+                "{\"nickname\":\"john\", \"betAmount\":12.35, \"pickedNumber\":7}", PlayerBetDTO.class);
+
+        assertThat(fromString.getBetAmount()).isEqualTo(100);
+        assertThat(fromNumber.getBetAmount()).isEqualTo(1235);
+    }
+
+    @Test
+    void testFractionsOfACentAreRejected() {
+        assertThatThrownBy(() -> objectMapper.readValue(
+                "{\"nickname\":\"john\", \"betAmount\":0.001, \"pickedNumber\":7}", PlayerBetDTO.class))
+                .isInstanceOf(JsonMappingException.class);
+    }
+
+    @Test
+    void testWinningsAreWrittenInMajorUnits() throws Exception {
+        Response response = new Response("ROUND_RESULT", "");
+        response.setWinning(99_000L);
+        response.setWinners(List.of(new Response.Winner("john", 1_995)));
+
+        String json = objectMapper.writeValueAsString(response);
+
+        assertThat(json).contains("\"winning\":990.00").contains("\"winning\":19.95");
+    }
+}
@@ -0,0 +1,117 @@
+package com.yolo.guessnumber.gamelogic;
+
+import com.yolo.guessnumber.config.GameProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ProvablyFairTest {
+
+    private final FairDrawPool pool = new FairDrawPool(100, 20);
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void testEveryDrawVerifies() {
+        for (int i = 0; i < 100; i++) {
+            FairDraw draw = pool.next();
+
+            assertThat(draw.result()).isBetween(1, 10);
+            assertThat(ProvablyFairVerifier.verify(draw.serverSeed(), draw.commitment(), draw.result())).isTrue();
+        }
+    }
+
+    @Test
+    void testRevealedSeedIsNextCommitment() {
+        FairDraw previous = pool.next();
+        for (int i = 1; i < 50; i++) {
+            FairDraw next = pool.next();
+
+            assertThat(next.commitment()).isEqualTo(previous.serverSeed());
+            assertThat(ProvablyFairVerifier.isNextInChain(previous.serverSeed(), next.serverSeed())).isTrue();
+            previous = next;
+        }
+    }
+
+    @Test
+    void testTamperedValuesFailVerification() {
+        FairDraw draw = pool.next();
+        FairDraw other = pool.next();
+        int wrongNumber = draw.result() % 10 + 1;
+
+        assertThat(ProvablyFairVerifier.verify(draw.serverSeed(), draw.commitment(), wrongNumber)).isFalse();
+        assertThat(ProvablyFairVerifier.verify(other.serverSeed(), draw.commitment(), draw.result())).isFalse();
+    }
+
+    @Test
+    void testPoolRefillsInBackground() throws InterruptedException {
+        // Taking the 81st draw leaves 19, below the refill threshold of 20
+        for (int i = 0; i < 90; i++) {
+            pool.next();
+        }
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (pool.getBackgroundChains() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+
+        assertThat(pool.size()).isEqualTo(110);
+        assertThat(pool.getBackgroundChains()).isEqualTo(1);
+        assertThat(pool.getDryWaits()).isZero();
+    }
+
+    @Test
+    void testDryPoolWaitsForGenerator() {
+        FairDrawPool smallPool = new FairDrawPool(10, 0);
+        List<FairDraw> draws = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            draws.add(smallPool.next());
+        }
+        smallPool.shutdown();
+
+        assertThat(draws).doesNotContainNull();
+        assertThat(draws.stream().map(FairDraw::serverSeed).distinct()).hasSize(draws.size());
+        // 990 draws beyond the constructor's chain came from the generator thread; the last
+        // chain may still be finishing its bookkeeping
+        assertThat(smallPool.getBackgroundChains()).isGreaterThanOrEqualTo(98);
+        assertThat(smallPool.getDryWaits()).isPositive();
+    }
+
+    @Test
+    void testResultsAreRoughlyUniform() {
+        FairDrawPool largePool = new FairDrawPool(50_000, 0);
+        int[] counts = new int[11];
+        for (int i = 0; i < 50_000; i++) {
+            counts[largePool.next().result()]++;
+        }
+        largePool.shutdown();
+
+        for (int number = 1; number <= 10; number++) {
+            assertThat(counts[number]).isBetween(4_500, 5_500);
+        }
+    }
+
+    @Test
+    void testGuessNumberModes() {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.getRng().setProvablyFair(true);
+        gameProperties.getRng().setChainLength(10);
+        GuessNumber fair = new GuessNumber(gameProperties);
+
+        assertThat(fair.isProvablyFair()).isTrue();
+        assertThat(fair.nextFairDraw()).isNotNull();
+        fair.shutdown();
+
+        GuessNumber plain = new GuessNumber();
+        assertThat(plain.isProvablyFair()).isFalse();
+        assertThat(plain.getResult()).isBetween(1, 10);
+        assertThatThrownBy(plain::nextFairDraw).isInstanceOf(IllegalStateException.class);
+    }
+}
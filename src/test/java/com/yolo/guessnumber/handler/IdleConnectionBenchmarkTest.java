@@ -0,0 +1,80 @@
+package com.yolo.guessnumber.handler;
+
+import com.yolo.guessnumber.GuessNumberApplication;
+import com.yolo.guessnumber.service.GameService;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.web.reactive.socket.client.ReactorNettyWebSocketClient;
+import reactor.core.Disposable;
+
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Run with ./gradlew benchmark -Dbenchmark.connections=5000
+// Client and server share the JVM, so both columns include the same client-side cost; compare the rows
+@Tag("benchmark")
+class IdleConnectionBenchmarkTest {
+
+    private static final int CONNECTIONS = Integer.getInteger("benchmark.connections", 2_000);
+    private static final long CONNECT_TIMEOUT_MS = 60_000;
+
+    @Test
+    void testIdleConnectionCostByProfile() throws InterruptedException {
+        System.out.println("\n=== IDLE CONNECTION BENCHMARK (" + CONNECTIONS + " connections) ===");
+        System.out.printf("%10s %16s %16s %12s%n", "profile", "heap delta MB", "heap/conn KB", "threads");
+        for (String profile : new String[]{"servlet", "reactive"}) {
+            measure(profile);
+        }
+    }
+
+    private void measure(String profile) throws InterruptedException {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(GuessNumberApplication.class)
+                .profiles(profile)
+                .properties("server.port=0",
+                        "spring.main.web-application-type=" + profile,
+                        "spring.datasource.url=jdbc:h2:mem:idle-" + profile + ";DB_CLOSE_DELAY=-1",
+                        "game.persistence.spill-file=./build/idle-benchmark-spill.jsonl")
+                .run();
+        List<Disposable> connections = new ArrayList<>(CONNECTIONS);
+        try {
+            GameService gameService = context.getBean(GameService.class);
+            URI uri = URI.create("ws://localhost:" + context.getEnvironment().getProperty("local.server.port") + "/ws");
+            ReactorNettyWebSocketClient client = new ReactorNettyWebSocketClient();
+
+            long heapBefore = usedHeapAfterGc();
+            int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+            // Each client drains its frames and never sends, so the server only holds idle sessions
+            for (int i = 0; i < CONNECTIONS; i++) {
+                connections.add(client.execute(uri, session -> session.receive().then()).subscribe());
+            }
+            long deadline = System.currentTimeMillis() + CONNECT_TIMEOUT_MS;
+            while (gameService.getSessions().size() < CONNECTIONS && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertThat(gameService.getSessions()).hasSize(CONNECTIONS);
+
+            long heapDelta = usedHeapAfterGc() - heapBefore;
+            int threadDelta = ManagementFactory.getThreadMXBean().getThreadCount() - threadsBefore;
+            System.out.printf("%10s %16.1f %16.1f %12d%n", profile, heapDelta / 1_048_576.0,
+                    heapDelta / 1024.0 / CONNECTIONS, threadDelta);
+        } finally {
+            connections.forEach(Disposable::dispose);
+            context.close();
+        }
+    }
+
+    private long usedHeapAfterGc() throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(100);
+        }
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
@@ -0,0 +1,80 @@
+package com.yolo.guessnumber.handler;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.socket.WebSocketSession;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+class ReactiveSessionAdapterTest {
+
+    private static final int BUFFER_SIZE = 8;
+
+    private WebSocketSession reactiveSession;
+    private ReactiveSessionAdapter adapter;
+
+    @BeforeEach
+    void setUp() {
+        reactiveSession = mock(WebSocketSession.class);
+        when(reactiveSession.getId()).thenReturn("reactive1");
+        when(reactiveSession.close(any())).thenReturn(Mono.empty());
+        adapter = new ReactiveSessionAdapter(reactiveSession, BUFFER_SIZE);
+    }
+
+    @Test
+    void testMessagesAreQueuedInOrder() throws IOException {
+        adapter.sendMessage(new TextMessage("first"));
+        adapter.sendMessage(new TextMessage("second"));
+        adapter.markClosed();
+
+        List<String> sent = adapter.outbound().collectList().block();
+
+        assertThat(sent).containsExactly("first", "second");
+        assertThat(adapter.getId()).isEqualTo("reactive1");
+    }
+
+    @Test
+    void testSendAfterCloseFails() {
+        adapter.markClosed();
+
+        assertThat(adapter.isOpen()).isFalse();
+        assertThatThrownBy(() -> adapter.sendMessage(new TextMessage("late")))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testBinaryMessagesAreRejected() {
+        assertThatThrownBy(() -> adapter.sendMessage(new BinaryMessage(new byte[]{1})))
+                .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testSlowConsumerIsDisconnected() throws IOException {
+        for (int i = 0; i < BUFFER_SIZE; i++) {
+            adapter.sendMessage(new TextMessage("frame" + i));
+        }
+
+        assertThatThrownBy(() -> adapter.sendMessage(new TextMessage("overflow")))
+                .isInstanceOf(IOException.class);
+        assertThat(adapter.isOpen()).isFalse();
+        verify(reactiveSession, timeout(1_000)).close(any());
+        assertThat(adapter.outbound().collectList().block()).hasSize(BUFFER_SIZE);
+    }
+
+    @Test
+    void testMessageSizeLimitsAreStored() {
+        adapter.setTextMessageSizeLimit(64 * 1024);
+        adapter.setBinaryMessageSizeLimit(1024);
+
+        assertThat(adapter.getTextMessageSizeLimit()).isEqualTo(64 * 1024);
+        assertThat(adapter.getBinaryMessageSizeLimit()).isEqualTo(1024);
+    }
+}
@@ -0,0 +1,187 @@
+package com.yolo.guessnumber.persistence;
+
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.GuessNumber;
+import com.yolo.guessnumber.playerBet.PlayerBetDTO;
+import com.yolo.guessnumber.service.GameService;
+import com.yolo.guessnumber.service.WebSocketService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
+import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class SettledRoundWriterTest {
+
+    private static final int ROUNDS = 2_000;
+    private static final int BETS_PER_ROUND = 3;
+
+    private EmbeddedDatabase database;
+    private JdbcTemplate jdbcTemplate;
+    private GameProperties gameProperties;
+    @TempDir
+    private Path tempDir;
+
+    @BeforeEach
+    void setUp() {
+        database = new EmbeddedDatabaseBuilder()
+                .setType(EmbeddedDatabaseType.H2)
+                .generateUniqueName(true)
+                .addScript("schema.sql")
+                .build();
+        jdbcTemplate = new JdbcTemplate(database);
+        gameProperties = new GameProperties();
+        gameProperties.getPersistence().setQueueCapacity(ROUNDS);
+        gameProperties.getPersistence().setRetryBackoffMs(1);
+        gameProperties.getPersistence().setMaxRetryBackoffMs(5);
+        gameProperties.getPersistence().setSpillFile(tempDir.resolve("spill.jsonl").toString());
+    }
+
+    @AfterEach
+    void tearDown() {
+        database.shutdown();
+    }
+
+    @Test
+    void testNoSettledBetIsLostOnGracefulShutdown() throws InterruptedException {
+        SettledRoundWriter writer = new SettledRoundWriter(jdbcTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+
+        for (int i = 1; i <= ROUNDS; i++) {
+            assertThat(writer.submit(round(i))).isTrue();
+        }
+        writer.shutdown();
+
+        assertThat(count("settled_round")).isEqualTo(ROUNDS);
+        assertThat(count("settled_bet")).isEqualTo(ROUNDS * BETS_PER_ROUND);
+        assertThat(writer.getPersistedBets()).isEqualTo(ROUNDS * BETS_PER_ROUND);
+        assertThat(writer.getRejectedRounds()).isZero();
+        assertThat(writer.getFailedRounds()).isZero();
+        assertThat(writer.getQueueDepth()).isZero();
+    }
+
+    @Test
+    void testFailedBatchIsRetried() throws InterruptedException {
+        JdbcTemplate flakyTemplate = spy(jdbcTemplate);
+        doThrow(new TransientDataAccessResourceException("connection reset"))
+                .doCallRealMethod()
+                .when(flakyTemplate).batchUpdate(eq(SettledRoundWriter.INSERT_ROUND), anyList());
+        SettledRoundWriter writer = new SettledRoundWriter(flakyTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+
+        writer.submit(round(1));
+        writer.shutdown();
+
+        assertThat(writer.getRetries()).isEqualTo(1);
+        assertThat(count("settled_round")).isEqualTo(1);
+        assertThat(count("settled_bet")).isEqualTo(BETS_PER_ROUND);
+    }
+
+    @Test
+    void testRoundThatCannotBeStoredIsSpilledWithoutBlockingOthers() throws Exception {
+        SettledRoundWriter writer = new SettledRoundWriter(jdbcTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+        SettledRound tooLong = new SettledRound(2, 5, System.currentTimeMillis(), List.of(
+                new SettledRound.Bet("session1", "x".repeat(256), 100, 5, 990)));
+
+        writer.submit(round(1));
+        writer.submit(tooLong);
+        writer.submit(round(3));
+        writer.shutdown();
+
+        assertThat(count("settled_round")).isEqualTo(2);
+        assertThat(writer.getPersistedRounds()).isEqualTo(2);
+        assertThat(writer.getSpilledRounds()).isEqualTo(1);
+        assertThat(writer.getRetries()).isZero();
+        List<String> spilled = Files.readAllLines(Path.of(gameProperties.getPersistence().getSpillFile()));
+        assertThat(spilled).singleElement().asString().contains("\"roundId\":2");
+    }
+
+    @Test
+    void testOutageIsRetriedUntilShutdownThenSpilled() throws Exception {
+        JdbcTemplate downTemplate = spy(jdbcTemplate);
+        doThrow(new TransientDataAccessResourceException("connection refused"))
+                .when(downTemplate).batchUpdate(eq(SettledRoundWriter.INSERT_ROUND), anyList());
+        SettledRoundWriter writer = new SettledRoundWriter(downTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+
+        writer.submit(round(1));
+        writer.submit(round(2));
+        Thread.sleep(200);
+        // Well past maxAttempts, but nothing is given up while the writer runs
+        assertThat(writer.getRetries()).isGreaterThan(gameProperties.getPersistence().getMaxAttempts());
+        assertThat(writer.getFailedRounds()).isZero();
+        writer.shutdown();
+
+        assertThat(writer.getSpilledRounds()).isEqualTo(2);
+        assertThat(writer.getLostRounds()).isZero();
+        List<String> spilled = Files.readAllLines(Path.of(gameProperties.getPersistence().getSpillFile()));
+        assertThat(spilled).hasSize(2);
+        assertThat(spilled.get(0)).contains("\"roundId\":1", "\"winAmount\":990");
+    }
+
+    @Test
+    void testSubmitAfterShutdownIsRejectedAndSpilled() throws Exception {
+        SettledRoundWriter writer = new SettledRoundWriter(jdbcTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+        writer.shutdown();
+
+        assertThat(writer.submit(round(1))).isFalse();
+        assertThat(writer.getRejectedRounds()).isEqualTo(1);
+        assertThat(writer.getSpilledRounds()).isEqualTo(1);
+        assertThat(Files.readAllLines(Path.of(gameProperties.getPersistence().getSpillFile()))).hasSize(1);
+    }
+
+    @Test
+    void testGameServiceStopsBeforeWriter() throws Exception {
+        SettledRoundWriter writer = new SettledRoundWriter(jdbcTemplate,
+                new DataSourceTransactionManager(database), gameProperties);
+        CountDownLatch settling = new CountDownLatch(1);
+        GuessNumber slowDraw = mock(GuessNumber.class);
+        when(slowDraw.getResult()).thenAnswer(invocation -> {
+            settling.countDown();
+            Thread.sleep(300);
+            return 5;
+        });
+        GameService gameService = new GameService(slowDraw, mock(WebSocketService.class), gameProperties, writer, 1);
+        Thread.sleep(1_200);
+        gameService.processPlayerBet("session1", new PlayerBetDTO("Player1", 100, 5));
+
+        assertThat(settling.await(5, TimeUnit.SECONDS)).isTrue();
+        // Same order as Spring: the game service depends on the writer, so it is destroyed first
+        gameService.stopGameLoop();
+        writer.shutdown();
+
+        assertThat(gameService.getRoundsSettled().sum()).isEqualTo(1);
+        assertThat(writer.getRejectedRounds()).isZero();
+        assertThat(count("settled_round")).isEqualTo(1);
+        assertThat(count("settled_bet")).isEqualTo(1);
+    }
+
+    private SettledRound round(long roundId) {
+        return new SettledRound(roundId, 5, System.currentTimeMillis(), List.of(
+                new SettledRound.Bet("session1", "Player1", 100, 5, 990),
+                new SettledRound.Bet("session2", "Player2", 50, 3, 0),
+                new SettledRound.Bet("session1", "Player1", 10, 7, 0)));
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+}
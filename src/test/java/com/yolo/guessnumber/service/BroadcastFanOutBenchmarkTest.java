@@ -0,0 +1,66 @@
+package com.yolo.guessnumber.service;
+
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.GuessNumber;
+import com.yolo.guessnumber.playerBet.PlayerBet;
+import com.yolo.guessnumber.response.Response;
+import com.yolo.guessnumber.simulation.InMemoryWebSocketSession;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+// Run with ./gradlew benchmark
+@Tag("benchmark")
+class BroadcastFanOutBenchmarkTest {
+
+    private static final int[] SESSION_COUNTS = {1_000, 10_000, 50_000};
+    private static final int WARMUP_RUNS = 3;
+    private static final int MEASURED_RUNS = 5;
+
+    @Test
+    void testFanOutLatencyBySessionAndCoreCount() {
+        int cores = Runtime.getRuntime().availableProcessors();
+        int[] shardCounts = cores > 4 ? new int[]{1, 2, 4, cores} : new int[]{1, 2, 4};
+
+        System.out.println("\n=== BROADCAST FAN-OUT BENCHMARK (" + cores + " cores) ===");
+        System.out.printf("%10s %8s %14s %14s%n", "sessions", "shards", "message ms", "result ms");
+        for (int sessionCount : SESSION_COUNTS) {
+            for (int shards : shardCounts) {
+                GameProperties gameProperties = new GameProperties();
+                gameProperties.getBroadcast().setShards(shards);
+                GameService gameService = new GameService(mock(GuessNumber.class), new WebSocketService(),
+                        gameProperties, -1);
+                LongAdder sent = new LongAdder();
+                for (int i = 0; i < sessionCount; i++) {
+                    String sessionId = "session" + i;
+                    gameService.getSessions().put(sessionId, new InMemoryWebSocketSession(sessionId, (id, payload) -> sent.increment()));
+                    gameService.getPlayerBets().put(sessionId, List.of(new PlayerBet("Player" + i, 100, i % 10 + 1)));
+                }
+                Response resultMsg = gameService.processResults();
+
+                double messageMs = measure(() -> gameService.broadcastMessage(new Response("COUNTDOWN", "Time remaining: 4 seconds")));
+                double resultMs = measure(() -> gameService.broadcastResult(resultMsg));
+                System.out.printf("%10d %8d %14.2f %14.2f%n", sessionCount, shards, messageMs, resultMs);
+
+                assertThat(sent.sum()).isEqualTo(2L * (WARMUP_RUNS + MEASURED_RUNS) * sessionCount);
+                gameService.stopGameLoop();
+            }
+        }
+    }
+
+    private double measure(Runnable broadcast) {
+        for (int i = 0; i < WARMUP_RUNS; i++) {
+            broadcast.run();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_RUNS; i++) {
+            broadcast.run();
+        }
+        return (System.nanoTime() - start) / 1_000_000.0 / MEASURED_RUNS;
+    }
+}
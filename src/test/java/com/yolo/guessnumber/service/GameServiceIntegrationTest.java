@@ -1,8 +1,11 @@
 package com.yolo.guessnumber.service;
 
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.FairDraw;
 import com.yolo.guessnumber.gamelogic.GuessNumber;
 import com.yolo.guessnumber.playerBet.PlayerBetDTO;
 import com.yolo.guessnumber.response.Response;
+import com.yolo.guessnumber.simulation.VirtualScheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -36,6 +39,8 @@ class GameServiceIntegrationTest {
     @Mock
     private WebSocketSession session3;
 
+    // Rounds run in virtual time: advancing the scheduler replaces sleeping
+    private final VirtualScheduler scheduler = new VirtualScheduler(0);
     private GameService gameService;
 
     @BeforeEach
@@ -49,7 +54,12 @@ class GameServiceIntegrationTest {
 
         lenient().when(guessNumber.getResult()).thenReturn(5);
 
-        gameService = new GameService(guessNumber, webSocketService, 1);
+        gameService = virtualGameService(new GameProperties());
+    }
+
+    private GameService virtualGameService(GameProperties gameProperties) {
+        return new GameService(guessNumber, webSocketService, gameProperties, null, 1,
+                scheduler, scheduler, scheduler.getClock());
     }
 
     @Test
@@ -60,14 +70,14 @@ class GameServiceIntegrationTest {
 
         assertThat(gameService.getSessions()).hasSize(3);
 
-        Thread.sleep(1100);
+        scheduler.advanceBy(1100);
 
         assertThat(gameService.isBettingPhase()).isTrue();
         assertThat(gameService.isGameInProgress()).isTrue();
 
-        PlayerBetDTO bet1 = new PlayerBetDTO("Player1", 100.0, 5);
-        PlayerBetDTO bet2 = new PlayerBetDTO("Player2", 50.0, 3);
-        PlayerBetDTO bet3 = new PlayerBetDTO("Player3", 200.0, 5);
+        PlayerBetDTO bet1 = new PlayerBetDTO("Player1", 10_000, 5);
+        PlayerBetDTO bet2 = new PlayerBetDTO("Player2", 5_000, 3);
+        PlayerBetDTO bet3 = new PlayerBetDTO("Player3", 20_000, 5);
 
         gameService.processPlayerBet("session1", bet1);
         gameService.processPlayerBet("session2", bet2);
@@ -75,7 +85,7 @@ class GameServiceIntegrationTest {
 
         assertThat(gameService.getPlayerBets()).hasSize(3);
 
-        Thread.sleep(1000);
+        scheduler.advanceBy(1000);
 
         assertThat(gameService.isBettingPhase()).isFalse();
 
@@ -119,14 +129,14 @@ class GameServiceIntegrationTest {
     void testBettingPhaseValidation() throws Exception {
         gameService.addSession(session1);
 
-        Thread.sleep(1000);
+        scheduler.advanceBy(1000);
 
-        PlayerBetDTO validBet = new PlayerBetDTO("TestPlayer", 100.0, 5);
+        PlayerBetDTO validBet = new PlayerBetDTO("TestPlayer", 10_000, 5);
 
         gameService.processPlayerBet("session1", validBet);
         assertThat(gameService.getPlayerBets()).hasSize(1);
 
-        Thread.sleep(1500);
+        scheduler.advanceBy(1500);
 
         gameService.addSession(session2);
         gameService.processPlayerBet("session2", validBet);
@@ -166,29 +176,145 @@ class GameServiceIntegrationTest {
         gameService.addSession(session1);
 
 
-        try {
-            Thread.sleep(1000);
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-        }
+        scheduler.advanceBy(1000);
 
-        gameService.processPlayerBet(null, new PlayerBetDTO("Test", 100.0, 5));
+        gameService.processPlayerBet(null, new PlayerBetDTO("Test", 10_000, 5));
         assertThat(gameService.getPlayerBets()).isEmpty();
 
         gameService.processPlayerBet("session1", null);
         assertThat(gameService.getPlayerBets()).isEmpty();
     }
 
+    @Test
+    void testPipelinedRounds() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setPipelined(true);
+        GameService pipelinedService = virtualGameService(gameProperties);
+        pipelinedService.addSession(session1);
+
+        scheduler.advanceBy(1100);
+
+        long firstRoundId = pipelinedService.getCurrentRound().getId();
+        pipelinedService.processPlayerBet("session1", new PlayerBetDTO("Player1", 10_000, 5));
+        assertThat(pipelinedService.getPlayerBets()).hasSize(1);
+
+        scheduler.advanceBy(1000);
+
+        // The next round opened without a gap and the first one was settled separately
+        assertThat(pipelinedService.isBettingPhase()).isTrue();
+        assertThat(pipelinedService.getCurrentRound().getId()).isEqualTo(firstRoundId + 1);
+        assertThat(pipelinedService.getPlayerBets()).isEmpty();
+        verify(webSocketService).sendJson(eq(session1), argThat(response ->
+                "ROUND_RESULT".equals(response.getType()) && Long.valueOf(firstRoundId).equals(response.getRoundId())
+                        && response.getWinning() > 0));
+
+        pipelinedService.stopGameLoop();
+    }
+
+    @Test
+    void testPipelinedResendIsIgnoredInNextRound() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setPipelined(true);
+        GameService pipelinedService = virtualGameService(gameProperties);
+        pipelinedService.addSession(session1);
+        PlayerBetDTO bet = new PlayerBetDTO("Player1", 10_000, 5);
+        bet.setRequestId(7L);
+
+        scheduler.advanceBy(1100);
+        pipelinedService.processPlayerBet("session1", bet);
+        assertThat(pipelinedService.getPlayerBets()).hasSize(1);
+
+        scheduler.advanceBy(1000);
+
+        // The resend reaches the server after its round closed; it must not count in the new round
+        pipelinedService.processPlayerBet("session1", bet);
+        assertThat(pipelinedService.getPlayerBets()).isEmpty();
+
+        PlayerBetDTO nextBet = new PlayerBetDTO("Player1", 10_000, 6);
+        nextBet.setRequestId(8L);
+        pipelinedService.processPlayerBet("session1", nextBet);
+        assertThat(pipelinedService.getPlayerBets().get("session1")).hasSize(1);
+
+        pipelinedService.stopGameLoop();
+    }
+
+    @Test
+    void testGameLoopSurvivesUnavailableDraw() {
+        when(guessNumber.isProvablyFair()).thenReturn(true);
+        when(guessNumber.nextFairDraw())
+                .thenThrow(new IllegalStateException("No provably-fair draw available"))
+                .thenReturn(new FairDraw("seed", "commitment", 5));
+
+        scheduler.advanceBy(1100);
+
+        // The first round could not open and was skipped without using up a round id
+        assertThat(gameService.isBettingPhase()).isFalse();
+
+        scheduler.advanceBy(2000);
+
+        assertThat(gameService.isBettingPhase()).isTrue();
+        assertThat(gameService.getCurrentRound().getId()).isEqualTo(1);
+        assertThat(gameService.getCurrentRound().getFairDraw().commitment()).isEqualTo("commitment");
+    }
+
+    @Test
+    void testPipelinedLoopSurvivesUnavailableDraw() throws Exception {
+        when(guessNumber.isProvablyFair()).thenReturn(true);
+        when(guessNumber.nextFairDraw())
+                .thenReturn(new FairDraw("seed", "commitment", 5))
+                .thenThrow(new IllegalStateException("No provably-fair draw available"))
+                .thenReturn(new FairDraw("seed2", "commitment2", 5));
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.setPipelined(true);
+        // Own scheduler, so the service from setUp doesn't take any of the draws
+        VirtualScheduler pipelinedScheduler = new VirtualScheduler(0);
+        GameService pipelinedService = new GameService(guessNumber, webSocketService, gameProperties, null, 1,
+                pipelinedScheduler, pipelinedScheduler, pipelinedScheduler.getClock());
+        pipelinedService.addSession(session1);
+
+        pipelinedScheduler.advanceBy(1100);
+        long firstRoundId = pipelinedService.getCurrentRound().getId();
+        pipelinedService.processPlayerBet("session1", new PlayerBetDTO("Player1", 10_000, 5));
+
+        pipelinedScheduler.advanceBy(1000);
+
+        // The next round could not open, but the closed one was still settled
+        assertThat(pipelinedService.isBettingPhase()).isFalse();
+        verify(webSocketService).sendJson(eq(session1), argThat(response ->
+                "ROUND_RESULT".equals(response.getType()) && Long.valueOf(firstRoundId).equals(response.getRoundId())));
+
+        pipelinedScheduler.advanceBy(1000);
+
+        assertThat(pipelinedService.isBettingPhase()).isTrue();
+        assertThat(pipelinedService.getCurrentRound().getId()).isEqualTo(firstRoundId + 1);
+
+        pipelinedService.stopGameLoop();
+    }
+
+    @Test
+    void testThroughputIsReportedFromCounters() throws Exception {
+        gameService.addSession(session1);
+
+        scheduler.advanceBy(1100);
+        gameService.processPlayerBet("session1", new PlayerBetDTO("Player1", 10_000, 5));
+        // Rounds settle every 2 seconds, so ten rounds have settled at 20 seconds
+        scheduler.advanceBy(18_900);
+
+        assertThat(gameService.getRoundsSettled().sum()).isEqualTo(10);
+        assertThat(gameService.getRoundsPerHour()).isEqualTo(1800.0);
+        assertThat(gameService.getBetsPerSecond()).isEqualTo(0.05);
+    }
+
     @Test
     void testMultipleRounds() throws Exception {
         gameService.addSession(session1);
 
-        Thread.sleep(500);
+        scheduler.advanceBy(500);
 
         assertThat(gameService.getPlayerBets()).isEmpty();
         assertThat(gameService.isBettingPhase()).isFalse();
 
-        Thread.sleep(1000);
+        scheduler.advanceBy(1000);
 
         assertThat(gameService.isBettingPhase()).isTrue();
         assertThat(gameService.isGameInProgress()).isTrue();
@@ -1,14 +1,20 @@
 package com.yolo.guessnumber.service;
 
+import com.yolo.guessnumber.config.GameProperties;
+import com.yolo.guessnumber.gamelogic.FairDraw;
 import com.yolo.guessnumber.gamelogic.GuessNumber;
 import com.yolo.guessnumber.playerBet.PlayerBet;
 import com.yolo.guessnumber.playerBet.PlayerBetDTO;
 import com.yolo.guessnumber.response.Response;
+import com.yolo.guessnumber.simulation.VirtualScheduler;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.web.socket.CloseStatus;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -16,6 +22,7 @@ import static org.mockito.Mockito.*;
 
 class GameServiceTest {
 
+    private final VirtualScheduler scheduler = new VirtualScheduler(0);
     private GameService gameService;
     private WebSocketService webSocketServiceMock;
 
@@ -23,13 +30,15 @@ class GameServiceTest {
     void setUp() {
         GuessNumber guessNumberMock = mock(GuessNumber.class);
         webSocketServiceMock = mock(WebSocketService.class);
-        gameService = new GameService(guessNumberMock, webSocketServiceMock, 0);
+        // The game loop is scheduled in virtual time and never advanced, so tests drive the phases
+        gameService = new GameService(guessNumberMock, webSocketServiceMock, new GameProperties(), null, 0,
+                scheduler, scheduler, scheduler.getClock());
     }
 
     @Test
     void testProcessPlayerBet_Success() throws IOException {
         String sessionId = "session1";
-        PlayerBetDTO playerBetDTO = new PlayerBetDTO("JohnDoe", 100d, 5);
+        PlayerBetDTO playerBetDTO = new PlayerBetDTO("JohnDoe", 10_000, 5);
 
         WebSocketSession sessionMock = mock(WebSocketSession.class);
         when(sessionMock.getId()).thenReturn(sessionId);
@@ -40,8 +49,141 @@ class GameServiceTest {
         gameService.processPlayerBet(sessionId, playerBetDTO);
 
         assertTrue(gameService.getPlayerBets().containsKey(sessionId));
-        assertEquals(100, gameService.getPlayerBets().get(sessionId).getBetAmount());
-        assertEquals(5, gameService.getPlayerBets().get(sessionId).getPickedNumber());
+        assertEquals(10_000, gameService.getPlayerBets().get(sessionId).get(0).getBetAmount());
+        assertEquals(5, gameService.getPlayerBets().get(sessionId).get(0).getPickedNumber());
+    }
+
+    @Test
+    void testProcessPlayerBet_SecondBetIsKept() throws IOException {
+        String sessionId = "session1";
+        gameService.startBettingPhase();
+        gameService.processPlayerBet(sessionId, new PlayerBetDTO("JohnDoe", 10_000, 5));
+        gameService.processPlayerBet(sessionId, new PlayerBetDTO("JohnDoe", 5_000, 7));
+
+        List<PlayerBet> bets = gameService.getPlayerBets().get(sessionId);
+        assertEquals(2, bets.size());
+        assertEquals(5, bets.get(0).getPickedNumber());
+        assertEquals(7, bets.get(1).getPickedNumber());
+    }
+
+    @Test
+    void testProcessPlayerBets_BatchOverLimitIsRejected() throws IOException {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.getBets().setMaxPerSession(3);
+        GameService limitedService = new GameService(mock(GuessNumber.class), webSocketServiceMock, gameProperties, -1);
+        String sessionId = "session1";
+
+        limitedService.processPlayerBets(sessionId, List.of(
+                new PlayerBetDTO("JohnDoe", 1_000, 1),
+                new PlayerBetDTO("JohnDoe", 1_000, 2)));
+        limitedService.processPlayerBets(sessionId, List.of(
+                new PlayerBetDTO("JohnDoe", 1_000, 3),
+                new PlayerBetDTO("JohnDoe", 1_000, 4)));
+
+        assertEquals(2, limitedService.getPlayerBets().get(sessionId).size());
+        verify(webSocketServiceMock).sendJson(any(), argThat(response ->
+                "ERROR".equals(response.getType()) && response.getMessage().contains("Bet limit reached")));
+    }
+
+    @Test
+    void testProcessPlayerBets_FrameOverLimitIsRejected() throws IOException {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.getBets().setMaxPerFrame(1);
+        GameService limitedService = new GameService(mock(GuessNumber.class), webSocketServiceMock, gameProperties, -1);
+
+        limitedService.processPlayerBets("session1", List.of(
+                new PlayerBetDTO("JohnDoe", 1_000, 1),
+                new PlayerBetDTO("JohnDoe", 1_000, 2)));
+
+        assertTrue(limitedService.getPlayerBets().isEmpty());
+    }
+
+    @Test
+    void testProcessPlayerBets_OversizedBetIsRejected() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        long maxAmount = new GameProperties().getBets().getMaxAmount();
+
+        service.processPlayerBets("session1", List.of(
+                new PlayerBetDTO("JohnDoe", 1_000, 1),
+                new PlayerBetDTO("JohnDoe", 100_000_000_000_000_000L, 2)));
+        service.processPlayerBet("session2", new PlayerBetDTO("JaneDoe", maxAmount, 3));
+        service.setWins(3);
+
+        assertFalse(service.getPlayerBets().containsKey("session1"));
+        assertEquals(GuessNumber.payout(maxAmount), service.getPlayerBets().get("session2").get(0).getWinAmount());
+        verify(webSocketServiceMock).sendJson(any(), argThat(response ->
+                "ERROR".equals(response.getType()) && response.getMessage().contains("Bet amount too large")));
+    }
+
+    @Test
+    void testProcessPlayerBet_LongNicknameIsRejected() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+
+        service.processPlayerBet("session1", new PlayerBetDTO("x".repeat(256), 1_000, 1));
+
+        assertTrue(service.getPlayerBets().isEmpty());
+        verify(webSocketServiceMock).sendJson(any(), argThat(response ->
+                "ERROR".equals(response.getType()) && response.getMessage().contains("Nickname too long")));
+    }
+
+    @Test
+    void testProcessPlayerBet_ResentBetIsIgnored() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        PlayerBetDTO playerBetDTO = new PlayerBetDTO("JohnDoe", 10_000, 5);
+        playerBetDTO.setRequestId(7L);
+        PlayerBetDTO otherBet = new PlayerBetDTO("JohnDoe", 10_000, 6);
+        otherBet.setRequestId(8L);
+
+        service.processPlayerBet("session1", playerBetDTO);
+        service.processPlayerBet("session1", playerBetDTO);
+        service.processPlayerBets("session1", List.of(playerBetDTO, otherBet));
+        service.processPlayerBet("session2", playerBetDTO);
+
+        assertEquals(2, service.getPlayerBets().get("session1").size());
+        assertEquals(1, service.getPlayerBets().get("session2").size());
+        verify(webSocketServiceMock, never()).sendJson(any(), any());
+    }
+
+    @Test
+    void testProcessPlayerBet_WrongRoundIsRejected() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        PlayerBetDTO playerBetDTO = new PlayerBetDTO("JohnDoe", 10_000, 5);
+        playerBetDTO.setRoundId(service.getCurrentRound().getId() + 1);
+
+        service.processPlayerBet("session1", playerBetDTO);
+
+        assertTrue(service.getPlayerBets().isEmpty());
+        verify(webSocketServiceMock).sendJson(any(), argThat(response ->
+                "ERROR".equals(response.getType()) && response.getMessage().contains("is not open for bets")));
+    }
+
+    @Test
+    void testProcessPlayerBet_ClosedRoundIsRejected() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        GameRound round = service.getCurrentRound();
+        round.close();
+
+        service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 5));
+
+        assertTrue(round.getPlayerBets().isEmpty());
+    }
+
+    @Test
+    void testProvablyFairRoundUsesCommittedDraw() throws IOException {
+        GuessNumber fairGuessNumber = mock(GuessNumber.class);
+        when(fairGuessNumber.isProvablyFair()).thenReturn(true);
+        when(fairGuessNumber.nextFairDraw()).thenReturn(new FairDraw("seed", "commitment", 7));
+        GameService service = new GameService(fairGuessNumber, webSocketServiceMock, -1);
+
+        service.startBettingPhase();
+        service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 7));
+        Response result = service.processResults();
+
+        assertEquals(7, result.getWinningNumber());
+        assertEquals("commitment", result.getCommitment());
+        assertEquals("seed", result.getServerSeed());
+        assertEquals(99_000, service.getPlayerBets().get("session1").get(0).getWinAmount());
+        verify(fairGuessNumber, never()).getResult();
     }
 
     @Test
@@ -55,6 +197,124 @@ class GameServiceTest {
         assertTrue(gameService.getSessions().containsKey("session1"));
     }
 
+    @Test
+    void testResumeSession_KeepsBetsAndReplaysMissedMessages() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        WebSocketSession firstSession = openSession("session1");
+        service.addSession(firstSession);
+        String resumeToken = sentTo(firstSession).get(0).getResumeToken();
+        service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 5));
+
+        service.removeSession(firstSession);
+        Response missedMsg = new Response("COUNTDOWN", "Time remaining: 4 seconds");
+        service.broadcastMessage(missedMsg);
+
+        WebSocketSession secondSession = openSession("session2");
+        assertTrue(service.resumeSession(secondSession, resumeToken));
+        List<Response> sent = sentTo(secondSession);
+        assertEquals(2, sent.size());
+        assertEquals("RESUMED", sent.get(0).getType());
+        assertSame(missedMsg, sent.get(1));
+
+        // The new connection bets as the same player
+        service.processPlayerBet("session2", new PlayerBetDTO("JohnDoe", 10_000, 6));
+        assertEquals(2, service.getPlayerBets().get("session1").size());
+        assertSame(secondSession, service.getSessions().get("session1"));
+
+        // Tokens are single use
+        assertFalse(service.resumeSession(openSession("session3"), resumeToken));
+    }
+
+    @Test
+    void testResumeSession_TakesOverConnectionNotYetClosed() throws IOException {
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, -1);
+        WebSocketSession firstSession = openSession("session1");
+        service.addSession(firstSession);
+        String resumeToken = sentTo(firstSession).get(0).getResumeToken();
+        service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 5));
+
+        // The client reconnects before the server has seen the old connection drop
+        WebSocketSession secondSession = openSession("session2");
+        assertTrue(service.resumeSession(secondSession, resumeToken));
+        verify(firstSession).close(any(CloseStatus.class));
+        assertSame(secondSession, service.getSessions().get("session1"));
+        assertEquals("RESUMED", sentTo(secondSession).get(0).getType());
+
+        // The late close of the old connection neither parks nor forgets the player
+        service.removeSession(firstSession);
+        assertSame(secondSession, service.getSessions().get("session1"));
+        assertTrue(service.getParkedPlayers().isEmpty());
+        service.processPlayerBet("session2", new PlayerBetDTO("JohnDoe", 10_000, 6));
+        assertEquals(2, service.getPlayerBets().get("session1").size());
+
+        Response message = new Response("TEST", "Test message");
+        service.broadcastMessage(message);
+        verify(webSocketServiceMock).sendJson(secondSession, message);
+        verify(webSocketServiceMock, never()).sendJson(firstSession, message);
+    }
+
+    @Test
+    void testSendFailureClosingSessionDuringBroadcastDoesNotDeadlock() throws IOException {
+        for (int parallelThreshold : new int[]{512, 0}) {
+            GameProperties gameProperties = new GameProperties();
+            gameProperties.getBroadcast().setShards(2);
+            gameProperties.getBroadcast().setParallelThreshold(parallelThreshold);
+            WebSocketService failingService = mock(WebSocketService.class);
+            GameService service = new GameService(mock(GuessNumber.class), failingService, gameProperties, -1);
+            WebSocketSession deadSession = openSession("session1");
+            service.addSession(deadSession);
+            service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 5));
+            Response resultMsg = service.processResults();
+            // Like the servlet container: a failed send closes the session on the sending thread
+            doAnswer(invocation -> {
+                service.removeSession(deadSession);
+                throw new IOException("Send timed out");
+            }).when(failingService).sendJson(eq(deadSession), any());
+
+            assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+                service.broadcastMessage(new Response("COUNTDOWN", "Time remaining: 4 seconds"));
+                service.broadcastResult(resultMsg);
+            });
+
+            assertTrue(service.getParkedPlayers().containsKey("session1"));
+            service.stopGameLoop();
+        }
+    }
+
+    @Test
+    void testResumeSession_ExpiresAfterGracePeriod() throws Exception {
+        GameProperties gameProperties = new GameProperties();
+        gameProperties.getResume().setGraceSeconds(1);
+        VirtualScheduler expiryScheduler = new VirtualScheduler(0);
+        GameService service = new GameService(mock(GuessNumber.class), webSocketServiceMock, gameProperties, null, -1,
+                expiryScheduler, expiryScheduler, expiryScheduler.getClock());
+        WebSocketSession firstSession = openSession("session1");
+        service.addSession(firstSession);
+        String resumeToken = sentTo(firstSession).get(0).getResumeToken();
+        service.processPlayerBet("session1", new PlayerBetDTO("JohnDoe", 10_000, 5));
+
+        service.removeSession(firstSession);
+        expiryScheduler.advanceBy(999);
+        assertTrue(service.getParkedPlayers().containsKey("session1"));
+        expiryScheduler.advanceBy(1);
+
+        assertFalse(service.getPlayerBets().containsKey("session1"));
+        assertFalse(service.resumeSession(openSession("session2"), resumeToken));
+    }
+
+    private WebSocketSession openSession(String sessionId) {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        when(session.isOpen()).thenReturn(true);
+        return session;
+    }
+
+    private List<Response> sentTo(WebSocketSession session) throws IOException {
+        ArgumentCaptor<Response> captor = ArgumentCaptor.forClass(Response.class);
+        verify(webSocketServiceMock, atLeastOnce()).sendJson(eq(session), captor.capture());
+        return captor.getAllValues();
+    }
+
     @Test
     void testBroadcastMessage() throws IOException {
         WebSocketSession sessionMock = mock(WebSocketSession.class);
@@ -71,13 +331,13 @@ class GameServiceTest {
 
     @Test
     void testCalculateWinners() {
-        gameService.getPlayerBets().put("session1", new PlayerBet("Player1", 100, 5));
-        gameService.getPlayerBets().put("session2", new PlayerBet("Player2", 200, 5));
-        gameService.getPlayerBets().put("session3", new PlayerBet("Player3", 150, 3));
+        gameService.getPlayerBets().put("session1", List.of(new PlayerBet("Player1", 100, 5)));
+        gameService.getPlayerBets().put("session2", List.of(new PlayerBet("Player2", 200, 5)));
+        gameService.getPlayerBets().put("session3", List.of(new PlayerBet("Player3", 150, 3)));
 
-        gameService.getPlayerBets().get("session1").setWinAmount(990);
-        gameService.getPlayerBets().get("session2").setWinAmount(1980);
-        gameService.getPlayerBets().get("session3").setWinAmount(0);
+        gameService.getPlayerBets().get("session1").get(0).setWinAmount(990);
+        gameService.getPlayerBets().get("session2").get(0).setWinAmount(1980);
+        gameService.getPlayerBets().get("session3").get(0).setWinAmount(0);
 
         List<Response.Winner> winners = gameService.calculateWinners();
 
@@ -0,0 +1,65 @@
+package com.yolo.guessnumber.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RequestIdSetTest {
+
+    @Test
+    void testAddContainsAndClear() {
+        RequestIdSet set = new RequestIdSet(16);
+        long key = RequestIdSet.key("session1", 42);
+
+        assertThat(set.contains(key)).isFalse();
+        assertThat(set.add(key)).isTrue();
+        assertThat(set.add(key)).isFalse();
+        assertThat(set.contains(key)).isTrue();
+        assertThat(set.contains(RequestIdSet.key("session2", 42))).isFalse();
+        assertThat(set.contains(RequestIdSet.key("session1", 43))).isFalse();
+
+        set.clear();
+
+        assertThat(set.contains(key)).isFalse();
+        assertThat(set.size()).isZero();
+    }
+
+    @Test
+    void testFullSetStopsRemembering() {
+        RequestIdSet set = new RequestIdSet(4);
+        for (long requestId = 0; requestId < 4; requestId++) {
+            set.add(RequestIdSet.key("session1", requestId));
+        }
+
+        long overflowKey = RequestIdSet.key("session1", 99);
+        assertThat(set.add(overflowKey)).isTrue();
+        assertThat(set.contains(overflowKey)).isFalse();
+        assertThat(set.getOverflows()).isEqualTo(1);
+    }
+
+    @Test
+    void testConcurrentAddsOfSameKeySucceedOnce() throws InterruptedException {
+        RequestIdSet set = new RequestIdSet(1_024);
+        AtomicInteger added = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            executor.execute(() -> {
+                for (long requestId = 0; requestId < 500; requestId++) {
+                    if (set.add(RequestIdSet.key("session1", requestId))) {
+                        added.incrementAndGet();
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertThat(added.get()).isEqualTo(500);
+        assertThat(set.size()).isEqualTo(500);
+    }
+}
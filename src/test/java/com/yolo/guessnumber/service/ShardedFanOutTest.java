@@ -0,0 +1,64 @@
+package com.yolo.guessnumber.service;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ShardedFanOutTest {
+
+    private final ShardedFanOut fanOut = new ShardedFanOut(4, 0);
+
+    @AfterEach
+    void tearDown() {
+        fanOut.shutdown();
+    }
+
+    @Test
+    void testEveryItemIsVisitedOnItsShardThread() {
+        List<String> sessionIds = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            sessionIds.add("session" + i);
+        }
+        Map<String, String> threadBySession = new ConcurrentHashMap<>();
+
+        fanOut.forEach(sessionIds, Function.identity(),
+                id -> threadBySession.put(id, Thread.currentThread().getName()));
+
+        assertThat(threadBySession).hasSize(sessionIds.size());
+        sessionIds.forEach(id -> assertThat(threadBySession.get(id))
+                .isEqualTo("broadcast-shard-" + fanOut.shardOf(id)));
+    }
+
+    @Test
+    void testSuccessiveBroadcastsKeepOrderPerSession() {
+        List<String> sessionIds = List.of("a", "b", "c", "d", "e", "f", "g", "h");
+        Map<String, List<Integer>> received = new ConcurrentHashMap<>();
+
+        for (int message = 0; message < 100; message++) {
+            int current = message;
+            fanOut.forEach(sessionIds, Function.identity(),
+                    id -> received.computeIfAbsent(id, key -> new ArrayList<>()).add(current));
+        }
+
+        sessionIds.forEach(id -> assertThat(received.get(id)).isSorted().hasSize(100));
+    }
+
+    @Test
+    void testSmallBroadcastRunsInline() {
+        ShardedFanOut thresholdFanOut = new ShardedFanOut(4, 10);
+        List<String> threads = new ArrayList<>();
+
+        thresholdFanOut.forEach(List.of("a", "b"), Function.identity(),
+                id -> threads.add(Thread.currentThread().getName()));
+        thresholdFanOut.shutdown();
+
+        assertThat(threads).containsOnly(Thread.currentThread().getName());
+    }
+}
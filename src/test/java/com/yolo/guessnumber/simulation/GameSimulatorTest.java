@@ -0,0 +1,111 @@
+package com.yolo.guessnumber.simulation;
+
+import com.yolo.guessnumber.playerBet.PlayerBetDTO;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GameSimulatorTest {
+
+    private static final int ROUND_TIME = 10;
+    private static final int PLAYERS = 10;
+
+    @Test
+    void testSameSeedAndStreamReplayIdentically() {
+        GameSimulator simulator = new GameSimulator(ROUND_TIME, 42);
+        List<RecordedBet> bets = betStream(simulator, 200);
+
+        SimulationResult first = simulator.run(bets, 200);
+        SimulationResult second = new GameSimulator(ROUND_TIME, 42).run(bets, 200);
+
+        assertThat(first.rounds()).isEqualTo(200);
+        assertThat(first.betsAccepted()).isEqualTo(200L * PLAYERS);
+        assertThat(first.totalWagered()).isEqualTo(200L * PLAYERS * 100);
+        assertThat(second.digest()).isEqualTo(first.digest());
+        assertThat(second.totalPaidOut()).isEqualTo(first.totalPaidOut());
+        assertThat(second.messagesSent()).isEqualTo(first.messagesSent());
+        assertThat(second.virtualMillis()).isEqualTo(first.virtualMillis());
+    }
+
+    @Test
+    void testDifferentSeedChangesOutcome() {
+        GameSimulator simulator = new GameSimulator(ROUND_TIME, 1);
+        List<RecordedBet> bets = betStream(simulator, 200);
+
+        SimulationResult first = simulator.run(bets, 200);
+        SimulationResult second = new GameSimulator(ROUND_TIME, 2).run(bets, 200);
+
+        assertThat(second.digest()).isNotEqualTo(first.digest());
+    }
+
+    @Test
+    void testRecordedStreamReplaysLikeBuiltStream() throws IOException {
+        String recorded = """
+                {"atMillis":1100,"sessionId":"s1","bet":{"nickname":"Ann","betAmount":"1.00","pickedNumber":3}}
+
+                {"atMillis":1200,"sessionId":"s2","bet":{"nickname":"Bob","betAmount":2.5,"pickedNumber":7}}
+                """;
+        List<RecordedBet> parsed = GameSimulator.readBetStream(new BufferedReader(new StringReader(recorded)));
+        List<RecordedBet> built = List.of(
+                new RecordedBet(1100, "s1", new PlayerBetDTO("Ann", 100, 3)),
+                new RecordedBet(1200, "s2", new PlayerBetDTO("Bob", 250, 7)));
+
+        SimulationResult fromFile = new GameSimulator(ROUND_TIME, 7).run(parsed, 3);
+        SimulationResult fromCode = new GameSimulator(ROUND_TIME, 7).run(built, 3);
+
+        assertThat(fromFile.betsAccepted()).isEqualTo(2);
+        assertThat(fromFile.totalWagered()).isEqualTo(350);
+        assertThat(fromFile.digest()).isEqualTo(fromCode.digest());
+    }
+
+    @Test
+    void testThousandsOfRoundsRunFasterThanRealTime() {
+        GameSimulator simulator = new GameSimulator(ROUND_TIME, 2024);
+        List<RecordedBet> bets = betStream(simulator, 2_000);
+
+        SimulationResult result = simulator.run(bets, 2_000);
+
+        System.out.printf("Simulated %d rounds (%d s of game time) at %.0f rounds/s, RTP %.4f%n",
+                result.rounds(), result.virtualMillis() / 1000, result.roundsPerSecond(), result.rtp());
+        assertThat(result.rounds()).isEqualTo(2_000);
+        assertThat(result.betsAccepted()).isEqualTo(2_000L * PLAYERS);
+        // Over 6 hours of game time must take well under a thousandth of that on the wall clock
+        assertThat(result.wallNanos() / 1_000_000).isLessThan(result.virtualMillis() / 1_000);
+    }
+
+    @Test
+    void testPipelinedRoundsInVirtualTime() {
+        GameSimulator simulator = new GameSimulator(ROUND_TIME, 42);
+        simulator.getGameProperties().setPipelined(true);
+        List<RecordedBet> bets = betStream(simulator, 100);
+
+        SimulationResult first = simulator.run(bets, 100);
+        SimulationResult second = simulator.run(bets, 100);
+
+        assertThat(first.rounds()).isEqualTo(100);
+        assertThat(first.betsAccepted()).isEqualTo(100L * PLAYERS);
+        assertThat(second.digest()).isEqualTo(first.digest());
+        // Pipelined rounds follow each other without the one-second gap
+        assertThat(first.virtualMillis()).isLessThan(100L * (ROUND_TIME + 1) * 1000);
+    }
+
+    // Every player bets 1.00 once per round, spread over the first second of the round
+    private static List<RecordedBet> betStream(GameSimulator simulator, int rounds) {
+        List<RecordedBet> bets = new ArrayList<>();
+        for (int round = 1; round <= rounds; round++) {
+            long start = simulator.roundStartMillis(round);
+            for (int player = 0; player < PLAYERS; player++) {
+                int pickedNumber = (player + round) % 10 + 1;
+                bets.add(new RecordedBet(start + 100L * (player + 1), "session" + player,
+                        new PlayerBetDTO("player" + player, 100, pickedNumber)));
+            }
+        }
+        return bets;
+    }
+}
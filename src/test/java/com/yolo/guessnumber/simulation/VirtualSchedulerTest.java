@@ -0,0 +1,55 @@
+package com.yolo.guessnumber.simulation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class VirtualSchedulerTest {
+
+    private final VirtualScheduler scheduler = new VirtualScheduler(0);
+    private final List<String> runs = new ArrayList<>();
+
+    @Test
+    void testTasksRunInTimeThenSubmissionOrder() {
+        scheduler.schedule(() -> runs.add("c"), 3, TimeUnit.SECONDS);
+        scheduler.schedule(() -> runs.add("a"), 1, TimeUnit.SECONDS);
+        scheduler.schedule(() -> runs.add("b1"), 2, TimeUnit.SECONDS);
+        scheduler.schedule(() -> runs.add("b2"), 2, TimeUnit.SECONDS);
+
+        scheduler.advanceBy(2_500);
+
+        assertThat(runs).containsExactly("a", "b1", "b2");
+        assertThat(scheduler.now()).isEqualTo(2_500);
+        assertThat(scheduler.getClock().millis()).isEqualTo(2_500);
+    }
+
+    @Test
+    void testPeriodicTaskRepeatsUntilCancelled() {
+        ScheduledFuture<?> ticker = scheduler.scheduleAtFixedRate(
+                () -> runs.add("tick@" + scheduler.now()), 1, 2, TimeUnit.SECONDS);
+
+        scheduler.advanceBy(5_000);
+        ticker.cancel(false);
+        scheduler.advanceBy(5_000);
+
+        assertThat(runs).containsExactly("tick@1000", "tick@3000", "tick@5000");
+    }
+
+    @Test
+    void testAdvanceUntilStopsWhenConditionHolds() {
+        scheduler.scheduleWithFixedDelay(() -> runs.add("tick"), 0, 1, TimeUnit.SECONDS);
+
+        boolean reached = scheduler.advanceUntil(() -> runs.size() == 10);
+
+        assertThat(reached).isTrue();
+        assertThat(scheduler.now()).isEqualTo(9_000);
+        scheduler.shutdown();
+        assertThat(scheduler.advanceUntil(() -> false)).isFalse();
+        assertThat(scheduler.isTerminated()).isTrue();
+    }
+}